@@ -0,0 +1,468 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnagramDictionary {
+
+    private static final int MIN_NUM_ANAGRAMS = 5;
+    static final int DEFAULT_WORD_LENGTH = 3;
+    static final int MAX_WORD_LENGTH = 7;
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_BATCH_CHUNK = 4096;
+    // Every dictionary entry, grouped by anagram signature and bucketed by length. Each query reads
+    // it once, so an update published mid-query never mixes two versions of the word set.
+    private volatile DictionarySnapshot snapshot;
+    private final GameSession defaultSession = new GameSession(this);  // Backs the single-game pickGoodStarterWord
+    private static volatile EngineMetrics defaultMetrics = EngineMetrics.NONE;  // Given to each new dictionary
+    private volatile EngineMetrics metrics = defaultMetrics;
+
+    public AnagramDictionary(Reader reader) throws IOException {
+        // TODO Milestone 3: Refactoring and Extensions
+        this(System.nanoTime(), new WordIndex(readWords(reader)));
+    }
+
+    // Builds the indexes with up to buildThreads threads, for word lists much larger than words.txt
+    public AnagramDictionary(Reader reader, int buildThreads) throws IOException {
+        this(System.nanoTime(), new WordIndex(readWords(reader), buildThreads));
+    }
+
+    // Arguments are evaluated left to right, so loadStart is read before the index is built
+    private AnagramDictionary(long loadStart, WordIndex index) {
+        this.snapshot = new DictionarySnapshot(index);
+        stopTimer(metrics, EngineMetrics.LOAD, loadStart);
+    }
+
+    // Loads a dictionary from an image written by writeImage or DictionaryCompiler,
+    // failing with an IOException if the image doesn't match the word list's checksum
+    public static AnagramDictionary fromImage(File image, long sourceChecksum) throws IOException {
+        return new AnagramDictionary(System.nanoTime(), DictionaryImage.map(image, sourceChecksum));
+    }
+
+    public void writeImage(File image, long sourceChecksum) throws IOException {
+        DictionaryImage.write(snapshot.index(), sourceChecksum, image);
+    }
+
+    public void addWord(String word) {
+        update(Collections.singletonList(word), Collections.<String>emptyList());
+    }
+
+    public void removeWord(String word) {
+        update(Collections.<String>emptyList(), Collections.singletonList(word));
+    }
+
+    // Adds and removes many words as one update; queries see either none of it or all of it
+    public void updateWords(Collection<String> added, Collection<String> removed) {
+        update(added, removed);
+    }
+
+    // Applies a delta file of "+word" and "-word" lines as a single update. Blank lines and lines
+    // starting with '#' are skipped.
+    public void applyDelta(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        ArrayList<String> added = new ArrayList<>();
+        ArrayList<String> removed = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if (line.charAt(0) == '+') {
+                added.add(line.substring(1).trim());
+            }
+            else if (line.charAt(0) == '-') {
+                removed.add(line.substring(1).trim());
+            }
+            else {
+                throw new IOException("Delta line " + lineNumber + " starts with neither + nor -: " + line);
+            }
+        }
+        update(added, removed);
+    }
+
+    // Metrics for dictionaries created from now on, including the time each one takes to load
+    public static void setDefaultMetrics(EngineMetrics metrics) {
+        defaultMetrics = metrics;
+    }
+
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    // How many updates have been applied since the dictionary was built
+    public long getVersion() {
+        return snapshot.version();
+    }
+
+    // Writers take turns; readers never wait, and keep using whichever snapshot they started with
+    private synchronized void update(Collection<String> added, Collection<String> removed) {
+        snapshot = snapshot.withChanges(added, removed);
+    }
+
+    // Strip all words into an ArrayList, which only lives until the index is built
+    static ArrayList<String> readWords(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        String line;
+        ArrayList<String> wordList = new ArrayList<>();
+        while((line = in.readLine()) != null) {
+            wordList.add(line.trim());
+        }
+        return wordList;
+    }
+
+    public boolean isGoodWord(String word, String base) {
+        // Return false if word is NOT in dictionary
+        if (!snapshot.contains(word)) return false;
+
+        // Check if word contains the base word
+        if (word.contains(base)) return false;
+
+        // If both checks pass, return true
+        return true;
+    }
+
+    // isGoodWord for every word in words against one base; bit i is set if words.get(i) is good
+    public BitSet areGoodWords(List<String> words, String base) {
+        return areGoodWords(words, base, 1);
+    }
+
+    // Validates batches larger than MIN_BATCH_CHUNK on up to the given number of threads, taken from
+    // one pool that every dictionary shares, so a batch never pays to start or stop threads
+    public BitSet areGoodWords(List<String> words, String base, int threads) {
+        DictionarySnapshot current = snapshot;
+        long[] bits = new long[(words.size() + 63) / 64];
+        // Chunks cover whole longs of the result, so no two of them write to the same one
+        int chunkCount = threads <= 1 ? 1 : threads * CHUNKS_PER_THREAD;
+        int chunkSize = Math.max(MIN_BATCH_CHUNK, (words.size() + chunkCount - 1) / chunkCount);
+        chunkSize = (chunkSize + 63) & ~63;
+        ArrayList<BatchChunk> chunks = new ArrayList<>();
+        for (int start = 0; start < words.size(); start += chunkSize) {
+            chunks.add(new BatchChunk(current, words, start, Math.min(words.size(), start + chunkSize), base, bits));
+        }
+
+        if (threads <= 1 || chunks.size() <= 1) {
+            for (BatchChunk chunk : chunks) {
+                chunk.call();
+            }
+            return BitSet.valueOf(bits);
+        }
+        // The pool is sized to the cores; submitting only threads workers is what bounds this batch
+        AtomicInteger nextChunk = new AtomicInteger();
+        ArrayList<BatchWorker> workers = new ArrayList<>();
+        for (int t = 0; t < Math.min(threads, chunks.size()); t++) {
+            workers.add(new BatchWorker(chunks, nextChunk));
+        }
+        try {
+            for (Future<Void> done : BatchPool.POOL.invokeAll(workers)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while validating words", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not validate words", e.getCause());
+        }
+        return BitSet.valueOf(bits);
+    }
+
+    public List<String> getAnagrams(String targetWord) {
+        ArrayList<String> result = new ArrayList<String>();
+        // Look up the anagram group for the word's letters instead of scanning every dictionary entry
+        DictionarySnapshot current = snapshot;
+        addGroup(result, current, current.findBaseGroup(targetWord));
+        addGroup(result, current, current.findAddedGroup(targetWord));
+        return result;
+    }
+
+    public List<String> getAnagramsWithOneMoreLetter(String word) {
+        EngineMetrics metrics = this.metrics;
+        long start = startTimer(metrics);
+        ArrayList<String> result = new ArrayList<String>();
+        for (String s : iterateAnagramsWithOneMoreLetter(word)) {
+            result.add(s);
+        }
+        stopTimer(metrics, EngineMetrics.ONE_MORE_LETTER, start);
+        metrics.count(EngineMetrics.ONE_MORE_LETTER_RESULTS, result.size());
+        return result;
+    }
+
+    // The same words as getAnagramsWithOneMoreLetter, in the same order, but looked up only as
+    // they are iterated, so a caller that stops early skips the remaining lookups
+    public Iterable<String> iterateAnagramsWithOneMoreLetter(final String word) {
+        final long low = LetterSignature.low(word);
+        final long high = LetterSignature.high(word);
+        return new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                final DictionarySnapshot current = snapshot;
+                return new GroupIterator(current) {
+                    // Even steps look in the base, odd ones among added words. Steps 0 and 1 are the
+                    // current word's own anagrams, then each pair tries adding the next lowercase letter.
+                    private int step = 0;
+
+                    @Override
+                    int nextGroup() {
+                        while (step < 2 * 27) {
+                            int letter = step / 2;
+                            boolean inBase = step % 2 == 0;
+                            step++;
+                            int group;
+                            if (letter == 0) {
+                                group = inBase ? current.findBaseGroup(word) : current.findAddedGroup(word);
+                            }
+                            else {
+                                char c = (char) ('a' + letter - 1);
+                                group = inBase ? current.findBaseGroupWithLetter(word, low, high, c)
+                                        : current.findAddedGroupWithLetter(word, low, high, c);
+                            }
+                            if (group != SignatureTable.NOT_FOUND) {
+                                return group;
+                            }
+                        }
+                        return SignatureTable.NOT_FOUND;
+                    }
+                };
+            }
+        };
+    }
+
+    // The number of words getAnagramsWithOneMoreLetter would return, without building the list.
+    // Allocates nothing for a-z words.
+    public int countAnagramsWithOneMoreLetter(String word) {
+        return snapshot.countWithOneMoreLetter(word);
+    }
+
+    // All words spelled with the letters of word plus exactly extraLetters more a-z letters.
+    // Walks the letter-count trie rather than probing every combination of added letters.
+    // Words with letters outside a-z have no letter counts, so they are never returned.
+    public List<String> getAnagramsWithMoreLetters(String word, int extraLetters) {
+        ArrayList<String> result = new ArrayList<String>();
+        long low = LetterSignature.low(word);
+        long high = LetterSignature.high(word);
+        if (low == LetterSignature.INVALID || high == LetterSignature.INVALID || extraLetters < 0) {
+            return result;
+        }
+
+        // Every letter may occur up to extraLetters more times than in word
+        int[] minCounts = LetterCountTrie.countsOf(low, high);
+        int[] maxCounts = new int[minCounts.length];
+        for (int letter = 0; letter < minCounts.length; letter++) {
+            maxCounts[letter] = minCounts[letter] + extraLetters;
+        }
+        DictionarySnapshot current = snapshot;
+        LetterCountTrie.Search search = current.baseTrie().search(minCounts, maxCounts, extraLetters, true);
+        for (int group = search.next(); group != SignatureTable.NOT_FOUND; group = search.next()) {
+            addGroup(result, current, group);
+        }
+        search = current.addedTrie().search(minCounts, maxCounts, extraLetters, true);
+        for (int group = search.next(); group != SignatureTable.NOT_FOUND; group = search.next()) {
+            addGroup(result, current, current.addedGroup(group));
+        }
+        return result;
+    }
+
+    // Every word that can be spelled with some of the letters in rack, each letter used at most as
+    // often as it appears there. Results are found as they are iterated, so stopping early is cheap
+    // and large racks never build a full list. Letters outside a-z in the rack are ignored.
+    public Iterable<String> getWordsFromLetters(String rack) {
+        final int[] maxCounts = new int[26];
+        int letters = 0;
+        for (int i = 0; i < rack.length(); i++) {
+            char c = rack.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                maxCounts[c - 'a']++;
+                letters++;
+            }
+        }
+        final int extraLetters = letters;
+        return new Iterable<String>() {
+            @Override
+            public Iterator<String> iterator() {
+                final DictionarySnapshot current = snapshot;
+                final LetterCountTrie.Search baseSearch = current.baseTrie().search(new int[26], maxCounts, extraLetters, false);
+                return new GroupIterator(current) {
+                    private LetterCountTrie.Search addedSearch;  // Started once the base search runs out
+
+                    @Override
+                    int nextGroup() {
+                        if (addedSearch == null) {
+                            int group = baseSearch.next();
+                            if (group != SignatureTable.NOT_FOUND) {
+                                return group;
+                            }
+                            addedSearch = current.addedTrie().search(new int[26], maxCounts, extraLetters, false);
+                        }
+                        return current.addedGroup(addedSearch.next());
+                    }
+                };
+            }
+        };
+    }
+
+    // For a single game; concurrent games should each play through their own GameSession
+    public String pickGoodStarterWord() throws NoStarterWordException {
+        synchronized (defaultSession) {
+            return defaultSession.pickGoodStarterWord();
+        }
+    }
+
+    // A random word of the given length with enough anagrams to start a game. Safe to call from
+    // any thread; each caller supplies its own random so picks never contend on a shared seed.
+    public String pickStarterWord(int length, Random random) throws NoStarterWordException {
+        return pickStarterWord(length, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY, random);
+    }
+
+    // As above, but only among words whose getDifficulty is between minDifficulty and
+    // maxDifficulty inclusive. Candidates are kept sorted by difficulty, so any band costs the
+    // same two binary searches.
+    public String pickStarterWord(int length, float minDifficulty, float maxDifficulty, Random random)
+            throws NoStarterWordException {
+        EngineMetrics metrics = this.metrics;
+        long start = startTimer(metrics);
+        DictionarySnapshot current = snapshot;
+        // Every candidate in the table already has enough anagrams, so any random pick will do
+        int id = current.starterTable(length, MIN_NUM_ANAGRAMS, metrics).pick(minDifficulty, maxDifficulty, random);
+        if (id == SignatureTable.NOT_FOUND) {
+            metrics.count(EngineMetrics.STARTER_NONE, 1);
+            throw new NoStarterWordException(length);
+        }
+        String entry = current.word(id);
+        stopTimer(metrics, EngineMetrics.STARTER_PICK, start);
+        return entry;
+    }
+
+    // How hard word is to start a game with: the average rarity of its letters in bits, less log2
+    // of how many words getAnagramsWithOneMoreLetter finds for it. Typical starter words score
+    // from about -2.5 (easy) to 4 (hard).
+    public float getDifficulty(String word) {
+        DictionarySnapshot current = snapshot;
+        return current.difficulty(word, current.countWithOneMoreLetter(word));
+    }
+
+    // Every word pickStarterWord could return for the length, easiest first, for checking the
+    // candidate tables
+    List<String> getStarterCandidates(int length) {
+        DictionarySnapshot current = snapshot;
+        StarterTable table = current.starterTable(length, MIN_NUM_ANAGRAMS, EngineMetrics.NONE);
+        ArrayList<String> result = new ArrayList<>();
+        for (int i = 0; i < table.size(); i++) {
+            result.add(current.word(table.id(i)));
+        }
+        return result;
+    }
+
+    // Reads the clock only when someone is listening
+    static long startTimer(EngineMetrics metrics) {
+        return metrics == EngineMetrics.NONE ? 0 : System.nanoTime();
+    }
+
+    static void stopTimer(EngineMetrics metrics, String name, long start) {
+        if (metrics != EngineMetrics.NONE) {
+            metrics.recordNanos(name, System.nanoTime() - start);
+        }
+    }
+
+    // Adds the group's live words; does nothing for NOT_FOUND
+    private static void addGroup(List<String> result, DictionarySnapshot snapshot, int group) {
+        if (group == SignatureTable.NOT_FOUND) {
+            return;
+        }
+        for (int id = snapshot.groupStart(group); id < snapshot.groupEnd(group); id++) {
+            if (snapshot.isLive(id)) {
+                result.add(snapshot.word(id));
+            }
+        }
+    }
+
+    // Validates one run of a batch, starting at a multiple of 64, into its longs of the result
+    private static class BatchChunk implements Callable<Void> {
+        final DictionarySnapshot snapshot;
+        final List<String> words;
+        final int start;
+        final int end;
+        final String base;
+        final long[] bits;
+
+        BatchChunk(DictionarySnapshot snapshot, List<String> words, int start, int end, String base, long[] bits) {
+            this.snapshot = snapshot;
+            this.words = words;
+            this.start = start;
+            this.end = end;
+            this.base = base;
+            this.bits = bits;
+        }
+
+        @Override
+        public Void call() {
+            for (int i = start; i < end; i++) {
+                String word = words.get(i);
+                // The substring scan is cheaper than the lookup, and rejects extensions of the base outright
+                if (!word.contains(base) && snapshot.contains(word)) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Runs a batch's chunks, taking the next one as each finishes, until none are left
+    private static class BatchWorker implements Callable<Void> {
+        final List<BatchChunk> chunks;
+        final AtomicInteger nextChunk;
+
+        BatchWorker(List<BatchChunk> chunks, AtomicInteger nextChunk) {
+            this.chunks = chunks;
+            this.nextChunk = nextChunk;
+        }
+
+        @Override
+        public Void call() {
+            int i;
+            while ((i = nextChunk.getAndIncrement()) < chunks.size()) {
+                chunks.get(i).call();
+            }
+            return null;
+        }
+    }
+
+    // Started on the first parallel batch and shared by every dictionary; idle workers time out
+    private static final class BatchPool {
+        static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The answers of one round, with the ones the player has found marked off. Checking and marking a
+ * guess is one hash lookup; the answers not yet found come back in their original order.
+ */
+public class AnswerSet {
+
+    private final List<String> answers;
+    private final HashMap<String, Integer> positions;  // Each answer's first position in answers
+    private final BitSet found = new BitSet();
+
+    public AnswerSet(List<String> answers) {
+        this.answers = answers;
+        positions = new HashMap<>(answers.size() * 2);
+        for (int i = answers.size() - 1; i >= 0; i--) {
+            positions.put(answers.get(i), i);
+        }
+    }
+
+    // Marks word as found, returning false if it isn't an answer or was already found
+    public boolean markFound(String word) {
+        Integer position = positions.get(word);
+        if (position == null || found.get(position)) {
+            return false;
+        }
+        found.set(position);
+        return true;
+    }
+
+    public boolean isAnswer(String word) {
+        return positions.containsKey(word);
+    }
+
+    public int size() {
+        return answers.size();
+    }
+
+    public int getFoundCount() {
+        return found.cardinality();
+    }
+
+    // The answers not yet found, in their original order
+    public List<String> getRemaining() {
+        ArrayList<String> remaining = new ArrayList<>(answers.size() - found.cardinality());
+        for (int i = found.nextClearBit(0); i < answers.size(); i = found.nextClearBit(i + 1)) {
+            remaining.add(answers.get(i));
+        }
+        return remaining;
+    }
+}
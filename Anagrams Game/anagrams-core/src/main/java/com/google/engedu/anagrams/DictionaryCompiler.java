@@ -0,0 +1,48 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Offline tool that compiles a word list into a {@link DictionaryImage}.
+ *
+ * Usage: DictionaryCompiler words.txt words.idx
+ */
+public class DictionaryCompiler {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: DictionaryCompiler <words.txt> <image>");
+            System.exit(1);
+        }
+        File source = new File(args[0]);
+        File image = new File(args[1]);
+
+        long checksum = DictionaryImage.checksum(new FileInputStream(source));
+        InputStreamReader reader = new InputStreamReader(new FileInputStream(source), "UTF-8");
+        try {
+            new AnagramDictionary(reader).writeImage(image, checksum);
+        } finally {
+            reader.close();
+        }
+        System.out.println(String.format("Compiled %s into %s (%,d bytes, checksum %08x)",
+                source, image, image.length(), checksum));
+    }
+}
@@ -0,0 +1,186 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary image of a {@link WordIndex}.
+ *
+ * The image is a fixed header followed by each index section, 8-byte aligned and little-endian,
+ * so loading is a memory map plus a handful of buffer views: no parsing and no re-hashing. The
+ * header records a checksum of the words.txt it was compiled from, and loading fails with an
+ * IOException when that no longer matches so the caller can fall back to the text file.
+ */
+public final class DictionaryImage {
+
+    private static final int MAGIC = 0x414E4147;  // "ANAG"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 48;
+    private static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    private DictionaryImage() {
+    }
+
+    // CRC32 of a source word list, recorded in the image to detect a stale compile
+    public static long checksum(InputStream in) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        int read;
+        try {
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    static void write(WordIndex index, long sourceChecksum, File file) throws IOException {
+        SignatureTable table = index.signatureTable();
+        IntBuffer otherGroups = index.otherGroups();
+        Layout layout = new Layout(index.size(), index.letters().limit(), index.groupCount(), table.capacity(),
+                index.lengthStarts().limit(), otherGroups.limit());
+
+        ByteBuffer image = ByteBuffer.allocate(layout.totalBytes).order(ORDER);
+        image.putInt(MAGIC);
+        image.putInt(VERSION);
+        image.putLong(sourceChecksum);
+        image.putInt(layout.wordCount);
+        image.putInt(layout.letterCount);
+        image.putInt(layout.groupCount);
+        image.putInt(layout.tableCapacity);
+        image.putInt(table.size());
+        image.putInt(layout.lengthCount);
+        image.putInt(layout.otherGroupCount);
+
+        section(image, layout.lows, layout.tableCapacity * 8).asLongBuffer().put(table.lows());
+        section(image, layout.highs, layout.tableCapacity * 8).asLongBuffer().put(table.highs());
+        section(image, layout.values, layout.tableCapacity * 4).asIntBuffer().put(table.values());
+        section(image, layout.wordStarts, (layout.wordCount + 1) * 4).asIntBuffer().put(index.wordStarts());
+        section(image, layout.groupStarts, (layout.groupCount + 1) * 4).asIntBuffer().put(index.groupStarts());
+        section(image, layout.wordsByLength, layout.wordCount * 4).asIntBuffer().put(index.wordsByLength());
+        section(image, layout.lengthStarts, layout.lengthCount * 4).asIntBuffer().put(index.lengthStarts());
+        section(image, layout.otherGroups, layout.otherGroupCount * 4).asIntBuffer().put(otherGroups);
+        section(image, layout.letters, layout.letterCount * 2).asCharBuffer().put(index.letters());
+
+        // Write beside the target and rename, so a reader never maps a half-written image
+        File partial = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(partial);
+        try {
+            image.rewind();
+            FileChannel channel = out.getChannel();
+            while (image.hasRemaining()) {
+                channel.write(image);
+            }
+        } finally {
+            out.close();
+        }
+        if (!partial.renameTo(file)) {
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    // Memory-maps an image file; the mapping stays valid after the file is closed
+    static WordIndex map(File file, long sourceChecksum) throws IOException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            FileChannel channel = in.getChannel();
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), sourceChecksum);
+        } finally {
+            in.close();
+        }
+    }
+
+    static WordIndex read(ByteBuffer image, long sourceChecksum) throws IOException {
+        image = image.duplicate().order(ORDER);
+        if (image.limit() < HEADER_BYTES || image.getInt(0) != MAGIC) {
+            throw new IOException("Not a dictionary image");
+        }
+        if (image.getInt(4) != VERSION) {
+            throw new IOException("Unsupported dictionary image version " + image.getInt(4));
+        }
+        if (image.getLong(8) != sourceChecksum) {
+            throw new IOException("Dictionary image is stale");
+        }
+        Layout layout = new Layout(image.getInt(16), image.getInt(20), image.getInt(24), image.getInt(28),
+                image.getInt(36), image.getInt(40));
+        if (image.limit() != layout.totalBytes) {
+            throw new IOException("Dictionary image is truncated");
+        }
+
+        LongBuffer lows = section(image, layout.lows, layout.tableCapacity * 8).asLongBuffer();
+        LongBuffer highs = section(image, layout.highs, layout.tableCapacity * 8).asLongBuffer();
+        IntBuffer values = section(image, layout.values, layout.tableCapacity * 4).asIntBuffer();
+        SignatureTable table = new SignatureTable(lows, highs, values, image.getInt(32));
+        return new WordIndex(
+                section(image, layout.letters, layout.letterCount * 2).asCharBuffer(),
+                section(image, layout.wordStarts, (layout.wordCount + 1) * 4).asIntBuffer(),
+                section(image, layout.groupStarts, (layout.groupCount + 1) * 4).asIntBuffer(),
+                table,
+                section(image, layout.wordsByLength, layout.wordCount * 4).asIntBuffer(),
+                section(image, layout.lengthStarts, layout.lengthCount * 4).asIntBuffer(),
+                section(image, layout.otherGroups, layout.otherGroupCount * 4).asIntBuffer());
+    }
+
+    private static ByteBuffer section(ByteBuffer image, int offset, int bytes) {
+        ByteBuffer section = image.duplicate();
+        section.position(offset);
+        section.limit(offset + bytes);
+        return section.slice().order(ORDER);
+    }
+
+    // Byte offsets of each section, derived from the counts in the header
+    private static class Layout {
+        final int wordCount, letterCount, groupCount, tableCapacity, lengthCount, otherGroupCount;
+        final int lows, highs, values, wordStarts, groupStarts, wordsByLength, lengthStarts, otherGroups, letters;
+        final int totalBytes;
+
+        Layout(int wordCount, int letterCount, int groupCount, int tableCapacity, int lengthCount, int otherGroupCount) {
+            this.wordCount = wordCount;
+            this.letterCount = letterCount;
+            this.groupCount = groupCount;
+            this.tableCapacity = tableCapacity;
+            this.lengthCount = lengthCount;
+            this.otherGroupCount = otherGroupCount;
+            lows = HEADER_BYTES;
+            highs = align(lows + tableCapacity * 8);
+            values = align(highs + tableCapacity * 8);
+            wordStarts = align(values + tableCapacity * 4);
+            groupStarts = align(wordStarts + (wordCount + 1) * 4);
+            wordsByLength = align(groupStarts + (groupCount + 1) * 4);
+            lengthStarts = align(wordsByLength + wordCount * 4);
+            otherGroups = align(lengthStarts + lengthCount * 4);
+            letters = align(otherGroups + otherGroupCount * 4);
+            totalBytes = align(letters + letterCount * 2);
+        }
+
+        private static int align(int offset) {
+            return (offset + 7) & ~7;
+        }
+    }
+}
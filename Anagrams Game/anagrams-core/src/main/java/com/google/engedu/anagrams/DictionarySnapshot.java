@@ -0,0 +1,416 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * One published version of the dictionary's words: an immutable base WordIndex plus the words
+ * added to and removed from it since it was built.
+ *
+ * A published snapshot never changes. withChanges copies the delta, indexes only the added words
+ * and returns a new snapshot, so a query that reads one snapshot sees a single consistent word set
+ * however many updates land while it runs. Once the delta outgrows a fraction of the base, the
+ * next update folds it into a fresh base instead.
+ *
+ * Word and group ids are layered: the base index's own ids come first, then the added index's ids
+ * offset by the base's size and group count.
+ */
+final class DictionarySnapshot {
+
+    private static final int COMPACT_DIVISOR = 8;  // Rebuild the base once the delta passes 1/8 of it
+    private static final int MIN_COMPACT_SIZE = 1024;  // Small deltas are always cheaper to layer
+
+    private final DictionarySnapshot pristine;  // The snapshot of the same base with no delta, possibly this
+    private final WordIndex base;
+    private final BitSet removed;  // Base ids no longer in the dictionary
+    private final int removedCount;
+    private final ArrayList<String> addedWords;  // In the order they were added; none of them are in the base
+    private final WordIndex added;
+    private final HashSet<String> changedKeys;  // Sorted letters of each changed word, and of it less any one letter
+    private final long version;
+    private volatile LetterCountTrie baseTrie;  // Only built on the pristine snapshot, and shared from there
+    private volatile LetterCountTrie addedTrie;
+    private volatile float[] letterRarity;  // Only built on the pristine snapshot, and shared from there
+    // Per length, live words good enough to start a game, by difficulty
+    private final AtomicReferenceArray<StarterTable> starterTables =
+            new AtomicReferenceArray<>(AnagramDictionary.MAX_WORD_LENGTH + 1);
+
+    DictionarySnapshot(WordIndex base) {
+        this(base, 0);
+    }
+
+    private DictionarySnapshot(WordIndex base, long version) {
+        this.pristine = this;
+        this.base = base;
+        this.removed = new BitSet();
+        this.removedCount = 0;
+        this.addedWords = new ArrayList<>();
+        this.added = new WordIndex(addedWords);
+        this.changedKeys = new HashSet<>();
+        this.version = version;
+    }
+
+    private DictionarySnapshot(DictionarySnapshot pristine, BitSet removed, ArrayList<String> addedWords,
+                               HashSet<String> changedKeys, long version) {
+        this.pristine = pristine;
+        this.base = pristine.base;
+        this.removed = removed;
+        this.removedCount = removed.cardinality();
+        this.addedWords = addedWords;
+        this.added = new WordIndex(addedWords);
+        this.changedKeys = changedKeys;
+        this.version = version;
+    }
+
+    // A new snapshot with removes taken out and adds put in, removals first. Only the delta is
+    // copied, unless it has grown large enough that rebuilding the base is the cheaper choice.
+    DictionarySnapshot withChanges(Collection<String> adds, Collection<String> removes) {
+        BitSet nowRemoved = (BitSet) removed.clone();
+        LinkedHashSet<String> nowAdded = new LinkedHashSet<>(addedWords);
+        HashSet<String> nowChanged = new HashSet<>(changedKeys);
+        for (String word : removes) {
+            if (nowAdded.remove(word) || markCopies(word, nowRemoved, true)) {
+                addChangedKeys(nowChanged, word);
+            }
+        }
+        for (String word : adds) {
+            boolean inBase = base.indexOf(word) != SignatureTable.NOT_FOUND;
+            if (inBase ? markCopies(word, nowRemoved, false) : nowAdded.add(word)) {
+                addChangedKeys(nowChanged, word);
+            }
+        }
+
+        ArrayList<String> addedList = new ArrayList<>(nowAdded);
+        int deltaSize = addedList.size() + nowRemoved.cardinality();
+        if (deltaSize > Math.max(MIN_COMPACT_SIZE, base.size() / COMPACT_DIVISOR)) {
+            return new DictionarySnapshot(new WordIndex(liveWords(nowRemoved, addedList)), version + 1);
+        }
+        return new DictionarySnapshot(pristine, nowRemoved, addedList, nowChanged, version + 1);
+    }
+
+    // Counts every update applied since the dictionary was built
+    long version() {
+        return version;
+    }
+
+    // All live words merged into one index, as an image of this snapshot would hold them
+    WordIndex index() {
+        if (pristine == this) {
+            return base;
+        }
+        return new WordIndex(liveWords(removed, addedWords));
+    }
+
+    boolean contains(String word) {
+        // Removing or restoring a base word marks every copy of it, so the first copy speaks for all
+        int id = base.indexOf(word);
+        if (id != SignatureTable.NOT_FOUND && !removed.get(id)) {
+            return true;
+        }
+        return added.contains(word);
+    }
+
+    // Each set of letters can have a group in both layers; look for it in each
+    int findBaseGroup(String word) {
+        return base.findGroup(word);
+    }
+
+    int findAddedGroup(String word) {
+        return addedGroup(added.findGroup(word));
+    }
+
+    // The base or added group of word with c added, given word's signature halves, or NOT_FOUND
+    int findBaseGroupWithLetter(String word, long low, long high, char c) {
+        return findGroupWithLetter(base, word, low, high, c);
+    }
+
+    int findAddedGroupWithLetter(String word, long low, long high, char c) {
+        return addedGroup(findGroupWithLetter(added, word, low, high, c));
+    }
+
+    int groupStart(int group) {
+        if (group < base.groupCount()) {
+            return base.groupStart(group);
+        }
+        return base.size() + added.groupStart(group - base.groupCount());
+    }
+
+    int groupEnd(int group) {
+        if (group < base.groupCount()) {
+            return base.groupEnd(group);
+        }
+        return base.size() + added.groupEnd(group - base.groupCount());
+    }
+
+    // Words of the group still in the dictionary; 0 for NOT_FOUND
+    int liveSize(int group) {
+        if (group == SignatureTable.NOT_FOUND) {
+            return 0;
+        }
+        int size = groupEnd(group) - groupStart(group);
+        if (removedCount == 0 || group >= base.groupCount()) {
+            return size;
+        }
+        for (int id = removed.nextSetBit(groupStart(group)); id >= 0 && id < groupEnd(group);
+             id = removed.nextSetBit(id + 1)) {
+            size--;
+        }
+        return size;
+    }
+
+    boolean isLive(int id) {
+        return id >= base.size() || !removed.get(id);
+    }
+
+    String word(int id) {
+        if (id < base.size()) {
+            return base.word(id);
+        }
+        return added.word(id - base.size());
+    }
+
+    // How many words getAnagramsWithOneMoreLetter finds for word: its own anagrams plus those
+    // with any one more letter. Allocates nothing for a-z words.
+    int countWithOneMoreLetter(String word) {
+        long low = LetterSignature.low(word);
+        long high = LetterSignature.high(word);
+        int count = liveSize(findBaseGroup(word)) + liveSize(findAddedGroup(word));
+        for (char c = 'a'; c <= 'z'; c++) {
+            count += liveSize(findBaseGroupWithLetter(word, low, high, c));
+            count += liveSize(findAddedGroupWithLetter(word, low, high, c));
+        }
+        return count;
+    }
+
+    // Searches over each layer; groups of the added trie still need addedGroup to become layered ids
+    LetterCountTrie baseTrie() {
+        LetterCountTrie trie = pristine.baseTrie;
+        if (trie == null) {
+            // Building it is costly enough that racing threads should wait for one build
+            synchronized (pristine) {
+                trie = pristine.baseTrie;
+                if (trie == null) {
+                    trie = new LetterCountTrie(base);
+                    pristine.baseTrie = trie;
+                }
+            }
+        }
+        return trie;
+    }
+
+    LetterCountTrie addedTrie() {
+        LetterCountTrie trie = addedTrie;
+        if (trie == null) {
+            synchronized (this) {
+                trie = addedTrie;
+                if (trie == null) {
+                    trie = new LetterCountTrie(added);
+                    addedTrie = trie;
+                }
+            }
+        }
+        return trie;
+    }
+
+    int addedGroup(int group) {
+        return group == SignatureTable.NOT_FOUND ? group : base.groupCount() + group;
+    }
+
+    // All live words of the given length with at least minAnagrams anagrams, built on first use
+    StarterTable starterTable(int length, int minAnagrams, EngineMetrics metrics) {
+        if (length < 0 || length > AnagramDictionary.MAX_WORD_LENGTH) {
+            return new StarterTable(new int[0], new float[0], 0);
+        }
+        StarterTable cached = starterTables.get(length);
+        if (cached != null) {
+            return cached;
+        }
+        long start = AnagramDictionary.startTimer(metrics);
+        StarterTable table = pristine == this ? scanCandidates(length, minAnagrams, metrics)
+                : patchCandidates(length, minAnagrams, metrics);
+        AnagramDictionary.stopTimer(metrics, EngineMetrics.STARTER_TABLE_BUILD, start);
+        // Threads racing to build the same length compute identical tables; the first one published wins
+        starterTables.compareAndSet(length, null, table);
+        return starterTables.get(length);
+    }
+
+    // How hard word is to play: the average rarity of its letters, in bits, less log2 of the number
+    // of answers it has. Few answers and rare letters both make a word harder.
+    float difficulty(String word, int answers) {
+        float[] rarity = letterRarity();
+        float bits = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            // Letters outside a-z count as the rarest letter
+            bits += c >= 'a' && c <= 'z' ? rarity[c - 'a'] : rarity[26];
+        }
+        float meanBits = word.isEmpty() ? 0 : bits / word.length();
+        return (float) (meanBits - Math.log(Math.max(1, answers)) / Math.log(2));
+    }
+
+    // Checks every word of the length in the base
+    private StarterTable scanCandidates(int length, int minAnagrams, EngineMetrics metrics) {
+        int bucketSize = base.lengthBucketSize(length);
+        int[] candidates = new int[bucketSize];
+        float[] difficulties = new float[bucketSize];
+        int count = 0;
+        for (int i = 0; i < bucketSize; i++) {
+            int id = base.wordOfLength(length, i);
+            int group = base.groupOf(id);
+            String word = base.word(id);
+            // Count the word's own group, plus everything getAnagramsWithOneMoreLetter would return
+            int answers = countWithOneMoreLetter(word);
+            int possibleAnagrams = base.groupSize(group) + answers;
+            if (possibleAnagrams >= minAnagrams) {
+                candidates[count] = id;
+                difficulties[count++] = difficulty(word, answers);
+            }
+        }
+        metrics.count(EngineMetrics.STARTER_REJECTED, bucketSize - count);
+        return new StarterTable(candidates, difficulties, count);
+    }
+
+    // Starts from the base's candidates and only re-checks the words whose counts the delta touched
+    private StarterTable patchCandidates(int length, int minAnagrams, EngineMetrics metrics) {
+        StarterTable inBase = pristine.starterTable(length, minAnagrams, metrics);
+        int[] candidates = new int[inBase.size() + 16];
+        float[] difficulties = new float[candidates.length];
+        int count = 0;
+        for (int i = 0; i < inBase.size(); i++) {
+            int id = inBase.id(i);
+            if (!removed.get(id) && !changedKeys.contains(WordIndex.sortLetters(base.word(id)))) {
+                candidates[count] = id;
+                difficulties[count++] = inBase.difficulty(i);
+            }
+        }
+        // A word's count changed only if its own group or one of its one-more-letter groups did
+        for (String key : changedKeys) {
+            if (key.length() != length) {
+                continue;
+            }
+            int[] groups = {findBaseGroup(key), findAddedGroup(key)};
+            int answers = countWithOneMoreLetter(key);
+            int possibleAnagrams = liveSize(groups[0]) + liveSize(groups[1]) + answers;
+            if (possibleAnagrams < minAnagrams) {
+                metrics.count(EngineMetrics.STARTER_REJECTED, liveSize(groups[0]) + liveSize(groups[1]));
+                continue;
+            }
+            float difficulty = difficulty(key, answers);
+            for (int group : groups) {
+                if (group == SignatureTable.NOT_FOUND) {
+                    continue;
+                }
+                for (int id = groupStart(group); id < groupEnd(group); id++) {
+                    if (isLive(id)) {
+                        if (count == candidates.length) {
+                            candidates = Arrays.copyOf(candidates, count * 2);
+                            difficulties = Arrays.copyOf(difficulties, count * 2);
+                        }
+                        candidates[count] = id;
+                        difficulties[count++] = difficulty;
+                    }
+                }
+            }
+        }
+        return new StarterTable(candidates, difficulties, count);
+    }
+
+    // Bits of information in each letter, -log2 of its share of all letters in the base, with the
+    // rarest of them last for letters outside a-z. Updates don't shift it, so scores stay comparable.
+    private float[] letterRarity() {
+        float[] rarity = pristine.letterRarity;
+        if (rarity != null) {
+            return rarity;
+        }
+        long[] counts = new long[26];
+        long total = 0;
+        for (int id = 0; id < base.size(); id++) {
+            String word = base.word(id);
+            for (int i = 0; i < word.length(); i++) {
+                char c = word.charAt(i);
+                if (c >= 'a' && c <= 'z') {
+                    counts[c - 'a']++;
+                    total++;
+                }
+            }
+        }
+        rarity = new float[27];
+        for (int letter = 0; letter < 26; letter++) {
+            // Letters that never occur count as if they occurred once
+            double share = (double) Math.max(1, counts[letter]) / Math.max(1, total);
+            rarity[letter] = (float) (-Math.log(share) / Math.log(2));
+            rarity[26] = Math.max(rarity[26], rarity[letter]);
+        }
+        // Racing threads compute identical tables, so either one may be kept
+        pristine.letterRarity = rarity;
+        return rarity;
+    }
+
+    // Sets or clears the mark of every base copy of word, returning whether any mark changed
+    private boolean markCopies(String word, BitSet marks, boolean remove) {
+        int group = base.findGroup(word);
+        if (group == SignatureTable.NOT_FOUND) {
+            return false;
+        }
+        boolean changed = false;
+        for (int id = base.groupStart(group); id < base.groupEnd(group); id++) {
+            if (base.matches(id, word) && marks.get(id) != remove) {
+                marks.set(id, remove);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // Changing word changes its own group and the one-more-letter results of words one letter shorter
+    private static void addChangedKeys(HashSet<String> keys, String word) {
+        String sorted = WordIndex.sortLetters(word);
+        keys.add(sorted);
+        for (int i = 0; i < sorted.length(); i++) {
+            keys.add(sorted.substring(0, i) + sorted.substring(i + 1));
+        }
+    }
+
+    private List<String> liveWords(BitSet removedIds, List<String> addedList) {
+        ArrayList<String> words = new ArrayList<>(base.size() + addedList.size());
+        for (int id = 0; id < base.size(); id++) {
+            if (!removedIds.get(id)) {
+                words.add(base.word(id));
+            }
+        }
+        words.addAll(addedList);
+        return words;
+    }
+
+    private static int findGroupWithLetter(WordIndex index, String word, long low, long high, char c) {
+        if (low == LetterSignature.INVALID || high == LetterSignature.INVALID) {
+            // Letters outside a-z have no signature, so fall back to looking up the extended string
+            return index.findGroup(word + c);
+        }
+        // Bump that letter's count in the signature
+        if (LetterSignature.isLow(c)) {
+            return index.findGroup(LetterSignature.addLetter(low, c), high);
+        }
+        return index.findGroup(low, LetterSignature.addLetter(high, c));
+    }
+}
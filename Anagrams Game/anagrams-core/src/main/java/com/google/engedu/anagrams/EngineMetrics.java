@@ -0,0 +1,48 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+/**
+ * Receives counts and latencies from the dictionary's hot paths. Implementations must be cheap
+ * and thread-safe, since they are called inline from every instrumented query.
+ *
+ * NONE discards everything, and the dictionary skips reading the clock while it is installed.
+ * MetricsRegistry keeps counters and latency histograms that can be dumped as a text report.
+ */
+public interface EngineMetrics {
+
+    // Names recorded by AnagramDictionary
+    String LOAD = "dictionary.load";
+    String STARTER_PICK = "starter.pick";
+    String STARTER_TABLE_BUILD = "starter.table.build";
+    String STARTER_REJECTED = "starter.rejected";
+    String STARTER_NONE = "starter.none";
+    String ONE_MORE_LETTER = "oneMoreLetter";
+    String ONE_MORE_LETTER_RESULTS = "oneMoreLetter.results";
+
+    EngineMetrics NONE = new EngineMetrics() {
+        @Override
+        public void count(String name, long delta) {
+        }
+
+        @Override
+        public void recordNanos(String name, long nanos) {
+        }
+    };
+
+    void count(String name, long delta);
+
+    void recordNanos(String name, long nanos);
+}
@@ -0,0 +1,73 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.util.Random;
+
+/**
+ * The state of one game played against a shared AnagramDictionary: the current starter word
+ * length and the game's own random number generator.
+ *
+ * Each dictionary query reads one published DictionarySnapshot, and addWord, removeWord and
+ * updateWords publish a new snapshot copy-on-write instead of changing the current one. Any number
+ * of sessions on any number of threads can keep playing while the word set changes; a query sees
+ * either the old or the new word set, never a mix. A session belongs to a single game and is not
+ * meant to be shared between threads.
+ */
+public class GameSession {
+
+    private final AnagramDictionary dictionary;
+    private final Random random;
+    private int wordLength = AnagramDictionary.DEFAULT_WORD_LENGTH;
+    private float minDifficulty = Float.NEGATIVE_INFINITY;  // Starter words are picked from this band
+    private float maxDifficulty = Float.POSITIVE_INFINITY;
+
+    public GameSession(AnagramDictionary dictionary) {
+        this(dictionary, new Random());
+    }
+
+    // A seeded random makes the sequence of starter words reproducible
+    public GameSession(AnagramDictionary dictionary, Random random) {
+        this.dictionary = dictionary;
+        this.random = random;
+    }
+
+    public AnagramDictionary getDictionary() {
+        return dictionary;
+    }
+
+    public int getWordLength() {
+        return wordLength;
+    }
+
+    // Limits starter words to those whose AnagramDictionary.getDifficulty is in the band.
+    // Every word is allowed by default.
+    public void setDifficulty(float minDifficulty, float maxDifficulty) {
+        this.minDifficulty = minDifficulty;
+        this.maxDifficulty = maxDifficulty;
+    }
+
+    // Picks a starter word of the current length, then makes the next round one letter longer
+    public String pickGoodStarterWord() throws NoStarterWordException {
+        String entry = dictionary.pickStarterWord(wordLength, minDifficulty, maxDifficulty, random);
+
+        // Increment word size unless maximum reached
+        if (wordLength < AnagramDictionary.MAX_WORD_LENGTH)
+            wordLength++;
+        // Return the picked starting word
+        return entry;
+    }
+}
@@ -0,0 +1,70 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterates the live words of a lazily produced sequence of anagram groups in a snapshot. Groups
+ * are only asked for as the caller reaches them, and each word String is only created when it is
+ * returned.
+ */
+abstract class GroupIterator implements Iterator<String> {
+
+    private final DictionarySnapshot snapshot;
+    private int nextId;
+    private int groupEnd;
+
+    GroupIterator(DictionarySnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // The next layered group id to iterate, or SignatureTable.NOT_FOUND when there are no more
+    abstract int nextGroup();
+
+    @Override
+    public boolean hasNext() {
+        while (true) {
+            // Skip words removed since the snapshot's base was built
+            while (nextId < groupEnd) {
+                if (snapshot.isLive(nextId)) {
+                    return true;
+                }
+                nextId++;
+            }
+            int group = nextGroup();
+            if (group == SignatureTable.NOT_FOUND) {
+                return false;
+            }
+            nextId = snapshot.groupStart(group);
+            groupEnd = snapshot.groupEnd(group);
+        }
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return snapshot.word(nextId++);
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,216 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Trie over the letter counts of every a-z anagram group.
+ *
+ * Level d of the trie branches on how many times the d-th letter of letterOrder occurs. The trie
+ * is implicit: groups are sorted by their count vectors, so every node is a contiguous range of
+ * sortedGroups and its children are found by binary search on the next letter's count. A search
+ * bounds each letter's count and the total number of letters beyond the minimum, and skips any
+ * subtree that falls outside those bounds.
+ */
+final class LetterCountTrie {
+
+    private static final int LETTERS = 26;
+    private static final int LETTERS_PER_KEY = 13;
+    private static final int BITS_PER_LETTER = 4;
+
+    private final int[] letterOrder = new int[LETTERS];  // Letter (0 for 'a') branched on at each depth
+    private final int[] sortedGroups;  // Group ids in order of their count vectors
+    private final long[] keyHighs;  // Counts of the first 13 letters of letterOrder, first letter most significant
+    private final long[] keyLows;  // Counts of the last 13
+
+    LetterCountTrie(WordIndex index) {
+        // Signatures of the groups a signature can describe
+        int groupCount = index.groupCount();
+        long[] lows = new long[groupCount];
+        long[] highs = new long[groupCount];
+        int[] letterTotals = new int[LETTERS];
+        int signed = 0;
+        for (int g = 0; g < groupCount; g++) {
+            String word = index.word(index.groupStart(g));
+            lows[g] = LetterSignature.low(word);
+            highs[g] = LetterSignature.high(word);
+            if (lows[g] != LetterSignature.INVALID && highs[g] != LetterSignature.INVALID) {
+                signed++;
+                for (int i = 0; i < word.length(); i++) {
+                    letterTotals[word.charAt(i) - 'a']++;
+                }
+            }
+        }
+
+        // Branch on the most common letters first, where a query's own letters cut the most
+        Integer[] order = new Integer[LETTERS];
+        for (int letter = 0; letter < LETTERS; letter++) {
+            order[letter] = letter;
+        }
+        final int[] totals = letterTotals;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return totals[b] != totals[a] ? totals[b] - totals[a] : a - b;
+            }
+        });
+        for (int depth = 0; depth < LETTERS; depth++) {
+            letterOrder[depth] = order[depth];
+        }
+
+        // Sort the groups by count vector in that letter order
+        Integer[] groups = new Integer[signed];
+        final long[] unsortedHighs = new long[groupCount];
+        final long[] unsortedLows = new long[groupCount];
+        int next = 0;
+        for (int g = 0; g < groupCount; g++) {
+            if (lows[g] == LetterSignature.INVALID || highs[g] == LetterSignature.INVALID) {
+                continue;
+            }
+            int[] counts = countsOf(lows[g], highs[g]);
+            for (int depth = 0; depth < LETTERS; depth++) {
+                long count = counts[letterOrder[depth]];
+                if (depth < LETTERS_PER_KEY) {
+                    unsortedHighs[g] |= count << ((LETTERS_PER_KEY - 1 - depth) * BITS_PER_LETTER);
+                }
+                else {
+                    unsortedLows[g] |= count << ((LETTERS - 1 - depth) * BITS_PER_LETTER);
+                }
+            }
+            groups[next++] = g;
+        }
+        Arrays.sort(groups, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                if (unsortedHighs[a] != unsortedHighs[b]) {
+                    return unsortedHighs[a] < unsortedHighs[b] ? -1 : 1;
+                }
+                return unsortedLows[a] < unsortedLows[b] ? -1 : unsortedLows[a] > unsortedLows[b] ? 1 : 0;
+            }
+        });
+        sortedGroups = new int[signed];
+        keyHighs = new long[signed];
+        keyLows = new long[signed];
+        for (int i = 0; i < signed; i++) {
+            sortedGroups[i] = groups[i];
+            keyHighs[i] = unsortedHighs[groups[i]];
+            keyLows[i] = unsortedLows[groups[i]];
+        }
+    }
+
+    // Letter counts of a signature, indexed from 0 for 'a'
+    static int[] countsOf(long low, long high) {
+        int[] counts = new int[LETTERS];
+        for (int letter = 0; letter < LETTERS_PER_KEY; letter++) {
+            counts[letter] = (int) ((low >>> (letter * BITS_PER_LETTER)) & 0xF);
+            counts[letter + LETTERS_PER_KEY] = (int) ((high >>> (letter * BITS_PER_LETTER)) & 0xF);
+        }
+        return counts;
+    }
+
+    // Finds groups whose count of every letter is between minCounts and maxCounts, and whose counts
+    // exceed minCounts by at most extraLetters in total, or by exactly extraLetters if exact is set
+    Search search(int[] minCounts, int[] maxCounts, int extraLetters, boolean exact) {
+        return new Search(minCounts, maxCounts, extraLetters, exact);
+    }
+
+    private int countAt(int i, int depth) {
+        if (depth < LETTERS_PER_KEY) {
+            return (int) ((keyHighs[i] >>> ((LETTERS_PER_KEY - 1 - depth) * BITS_PER_LETTER)) & 0xF);
+        }
+        return (int) ((keyLows[i] >>> ((LETTERS - 1 - depth) * BITS_PER_LETTER)) & 0xF);
+    }
+
+    // First index in [from, to) whose count at depth is at least count; counts there are sorted
+    private int lowerBound(int from, int to, int depth, int count) {
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (countAt(mid, depth) < count) {
+                from = mid + 1;
+            }
+            else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    /**
+     * A depth-first walk of the trie that yields one matching group at a time, holding only a
+     * stack of 26 ranges, so a caller can stop early without paying for the rest of the results.
+     */
+    final class Search {
+        private final int[] minCounts = new int[LETTERS];  // By depth
+        private final int[] maxCounts = new int[LETTERS];
+        private final int extraLetters;
+        private final boolean exact;
+
+        // Per depth: the node's range, where its next child starts, and the extra letters spent above it
+        private final int[] nodeEnds = new int[LETTERS + 1];
+        private final int[] nextChild = new int[LETTERS + 1];
+        private final int[] spent = new int[LETTERS + 1];
+        private int depth;
+
+        private Search(int[] minCountsByLetter, int[] maxCountsByLetter, int extraLetters, boolean exact) {
+            for (int d = 0; d < LETTERS; d++) {
+                minCounts[d] = minCountsByLetter[letterOrder[d]];
+                maxCounts[d] = maxCountsByLetter[letterOrder[d]];
+            }
+            this.extraLetters = extraLetters;
+            this.exact = exact;
+            nextChild[0] = 0;
+            nodeEnds[0] = sortedGroups.length;
+        }
+
+        // The next matching group, or SignatureTable.NOT_FOUND once there are no more
+        int next() {
+            while (depth >= 0) {
+                if (depth == LETTERS) {
+                    // A leaf is a single group; pop back to its parent before returning it
+                    int group = sortedGroups[nextChild[depth]];
+                    boolean matches = !exact || spent[depth] == extraLetters;
+                    depth--;
+                    if (matches) {
+                        return group;
+                    }
+                    continue;
+                }
+
+                int from = nextChild[depth];
+                int to = nodeEnds[depth];
+                int budget = extraLetters - spent[depth];
+                int highest = Math.min(maxCounts[depth], minCounts[depth] + budget);
+                // Skip straight to the first child with an allowed count
+                int start = lowerBound(from, to, depth, minCounts[depth]);
+                if (start == to || countAt(start, depth) > highest) {
+                    depth--;
+                    continue;
+                }
+                int count = countAt(start, depth);
+                int end = lowerBound(start, to, depth, count + 1);
+                nextChild[depth] = end;
+
+                depth++;
+                nextChild[depth] = start;
+                nodeEnds[depth] = end;
+                spent[depth] = spent[depth - 1] + count - minCounts[depth - 1];
+            }
+            return SignatureTable.NOT_FOUND;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+/**
+ * Letter-count signatures for lowercase a-z words.
+ *
+ * A signature is a 26-letter histogram packed into two longs with four bits per letter:
+ * the low half counts 'a' to 'm' and the high half counts 'n' to 'z'. Two words are
+ * anagrams exactly when both halves are equal, and adding a letter is a single addition.
+ */
+final class LetterSignature {
+
+    // Returned for words containing characters outside a-z, or more than 15 of one letter
+    static final long INVALID = -1L;
+
+    private static final int BITS_PER_LETTER = 4;
+    private static final long COUNT_MASK = 0xFL;
+    private static final char FIRST_HIGH_LETTER = 'n';
+
+    private LetterSignature() {
+    }
+
+    // Counts of 'a' to 'm'
+    static long low(CharSequence word) {
+        return half(word, 'a', (char) (FIRST_HIGH_LETTER - 1));
+    }
+
+    // Counts of 'n' to 'z'
+    static long high(CharSequence word) {
+        return half(word, FIRST_HIGH_LETTER, 'z');
+    }
+
+    // True if c is counted in the low half of a signature
+    static boolean isLow(char c) {
+        return c < FIRST_HIGH_LETTER;
+    }
+
+    // Adds one c to the half that counts it, or returns INVALID if that count would overflow
+    static long addLetter(long half, char c) {
+        int shift = shift(c);
+        if (half == INVALID || ((half >>> shift) & COUNT_MASK) == COUNT_MASK) {
+            return INVALID;
+        }
+        return half + (1L << shift);
+    }
+
+    private static long half(CharSequence word, char first, char last) {
+        long signature = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return INVALID;
+            }
+            if (c >= first && c <= last) {
+                signature = addLetter(signature, c);
+                if (signature == INVALID) {
+                    return INVALID;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static int shift(char c) {
+        int offset = isLow(c) ? c - 'a' : c - FIRST_HIGH_LETTER;
+        return offset * BITS_PER_LETTER;
+    }
+}
@@ -0,0 +1,97 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * EngineMetrics that keeps a counter or a LatencyHistogram per name, created on first use.
+ * Recording is lock-free; report() renders everything as text, for a log or for a host that
+ * serves it from a local metrics endpoint.
+ */
+public final class MetricsRegistry implements EngineMetrics {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ConcurrentHashMap<String, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    @Override
+    public void count(String name, long delta) {
+        AtomicLong counter = counters.get(name);
+        if (counter == null) {
+            AtomicLong created = new AtomicLong();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        counter.addAndGet(delta);
+    }
+
+    @Override
+    public void recordNanos(String name, long nanos) {
+        getHistogram(name).record(nanos);
+    }
+
+    public long getCount(String name) {
+        AtomicLong counter = counters.get(name);
+        return counter == null ? 0 : counter.get();
+    }
+
+    public LatencyHistogram getHistogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    // Counters, then one line of latency percentiles per histogram, in microseconds, sorted by name
+    public String report() {
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, AtomicLong> counter : new TreeMap<>(counters).entrySet()) {
+            report.append(String.format("%-24s %d%n", counter.getKey(), counter.getValue().get()));
+        }
+        if (!histograms.isEmpty()) {
+            report.append(String.format("%-24s %8s %10s", "latency (us)", "count", "mean"));
+            for (double percentile : PERCENTILES) {
+                report.append(String.format(" %10s", "p" + format(percentile)));
+            }
+            report.append(String.format(" %10s%n", "max"));
+        }
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            report.append(String.format("%-24s %8d %10.1f", entry.getKey(), histogram.getCount(),
+                    histogram.getMean() / 1000));
+            for (double percentile : PERCENTILES) {
+                report.append(String.format(" %10.1f", histogram.getValueAtPercentile(percentile) / 1000.0));
+            }
+            report.append(String.format(" %10.1f%n", histogram.getMax() / 1000.0));
+        }
+        return report.toString();
+    }
+
+    private static String format(double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
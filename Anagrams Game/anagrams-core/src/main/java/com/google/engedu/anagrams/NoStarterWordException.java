@@ -0,0 +1,35 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+/**
+ * Thrown when the dictionary has no word of the requested length with enough anagrams to start a game.
+ */
+public class NoStarterWordException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int wordLength;
+
+    public NoStarterWordException(int wordLength) {
+        super("No starter word of length " + wordLength + " has enough anagrams");
+        this.wordLength = wordLength;
+    }
+
+    public int getWordLength() {
+        return wordLength;
+    }
+}
@@ -0,0 +1,133 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from a {@link LetterSignature} to an int, stored in primitive buffers
+ * so lookups never box or allocate. A table is either built in heap arrays or mapped read-only
+ * from a {@link DictionaryImage}.
+ */
+final class SignatureTable {
+
+    static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private LongBuffer lows;
+    private LongBuffer highs;
+    private IntBuffer values;
+    private int size;
+
+    SignatureTable() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    // Wraps slots laid out by a previously built table
+    SignatureTable(LongBuffer lows, LongBuffer highs, IntBuffer values, int size) {
+        this.lows = lows;
+        this.highs = highs;
+        this.values = values;
+        this.size = size;
+    }
+
+    int get(long low, long high) {
+        if (low == LetterSignature.INVALID || high == LetterSignature.INVALID) {
+            return NOT_FOUND;
+        }
+        int mask = capacity() - 1;
+        // Linear probing until the key or an empty slot turns up
+        for (int slot = hash(low, high) & mask; lows.get(slot) != LetterSignature.INVALID; slot = (slot + 1) & mask) {
+            if (lows.get(slot) == low && highs.get(slot) == high) {
+                return values.get(slot);
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    void put(long low, long high, int value) {
+        // Keep the table at most half full so probe sequences stay short
+        if ((size + 1) * 2 > capacity()) {
+            resize();
+        }
+        int mask = capacity() - 1;
+        int slot = hash(low, high) & mask;
+        while (lows.get(slot) != LetterSignature.INVALID) {
+            if (lows.get(slot) == low && highs.get(slot) == high) {
+                values.put(slot, value);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        lows.put(slot, low);
+        highs.put(slot, high);
+        values.put(slot, value);
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return lows.limit();
+    }
+
+    // Raw slots, for writing the table into an image
+    LongBuffer lows() {
+        return lows.duplicate();
+    }
+
+    LongBuffer highs() {
+        return highs.duplicate();
+    }
+
+    IntBuffer values() {
+        return values.duplicate();
+    }
+
+    private void resize() {
+        LongBuffer oldLows = lows;
+        LongBuffer oldHighs = highs;
+        IntBuffer oldValues = values;
+        allocate(capacity() * 2);
+        for (int i = 0; i < oldLows.limit(); i++) {
+            if (oldLows.get(i) != LetterSignature.INVALID) {
+                put(oldLows.get(i), oldHighs.get(i), oldValues.get(i));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        long[] emptyLows = new long[capacity];
+        // INVALID never occurs as a real key, so it marks empty slots
+        Arrays.fill(emptyLows, LetterSignature.INVALID);
+        lows = LongBuffer.wrap(emptyLows);
+        highs = LongBuffer.wrap(new long[capacity]);
+        values = IntBuffer.wrap(new int[capacity]);
+        size = 0;
+    }
+
+    private static int hash(long low, long high) {
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        h ^= h >>> 32;
+        h *= 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 29));
+    }
+}
@@ -0,0 +1,90 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * The starter candidates of one word length, sorted by difficulty, so that picking a random word
+ * from a band of difficulties is two binary searches and one random index.
+ */
+final class StarterTable {
+
+    private final int[] ids;
+    private final float[] difficulties;  // Ascending; difficulties[i] belongs to ids[i]
+
+    // Takes the first count entries of the arrays, in any order
+    StarterTable(int[] unsortedIds, float[] unsortedDifficulties, int count) {
+        // Sort (difficulty, position) pairs packed into longs, so the sort never boxes
+        long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = ((long) sortableBits(unsortedDifficulties[i]) << 32) | i;
+        }
+        Arrays.sort(keys);
+        ids = new int[count];
+        difficulties = new float[count];
+        for (int i = 0; i < count; i++) {
+            int from = (int) keys[i];
+            ids[i] = unsortedIds[from];
+            difficulties[i] = unsortedDifficulties[from];
+        }
+    }
+
+    int size() {
+        return ids.length;
+    }
+
+    int id(int i) {
+        return ids[i];
+    }
+
+    float difficulty(int i) {
+        return difficulties[i];
+    }
+
+    // A uniformly random id among those with difficulty in [minDifficulty, maxDifficulty], or
+    // NOT_FOUND if the band is empty
+    int pick(float minDifficulty, float maxDifficulty, Random random) {
+        int from = firstAbove(minDifficulty, false);
+        int to = firstAbove(maxDifficulty, true);
+        if (from >= to) {
+            return SignatureTable.NOT_FOUND;
+        }
+        return ids[from + random.nextInt(to - from)];
+    }
+
+    // First index whose difficulty is above bound, or at or above it unless inclusive
+    private int firstAbove(float bound, boolean inclusive) {
+        int from = 0;
+        int to = difficulties.length;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (difficulties[mid] < bound || (inclusive && difficulties[mid] == bound)) {
+                from = mid + 1;
+            }
+            else {
+                to = mid;
+            }
+        }
+        return from;
+    }
+
+    // Float bits as a signed int in the same order as the floats themselves
+    private static int sortableBits(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & 0x7FFFFFFF);
+    }
+}
@@ -0,0 +1,393 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Immutable, array-backed index over every dictionary word.
+ *
+ * All words live in one char arena, ordered so that each anagram group is a contiguous run of
+ * word ids. A {@link SignatureTable} maps a letter signature to its group, and a second array
+ * lists word ids bucketed by length. Nothing but the arrays is kept per word.
+ *
+ * The arrays are held as NIO buffers, so an index is either built in the heap from a word list
+ * or mapped straight out of a {@link DictionaryImage} without copying.
+ */
+final class WordIndex {
+
+    private static final int SHARDS_PER_THREAD = 4;  // Extra shards even out uneven workers
+    private static final int MIN_SHARD_SIZE = 4096;  // Below this, a shard costs more to schedule than to build
+
+    private final CharBuffer letters;  // Every word back to back, grouped by anagram group
+    private final IntBuffer wordStarts;  // Word i occupies letters[wordStarts[i]] up to letters[wordStarts[i + 1]]
+    private final IntBuffer groupStarts;  // Group g holds word ids groupStarts[g] up to groupStarts[g + 1]
+    private final SignatureTable signatureToGroup;  // Letter signature to group id
+    private final HashMap<String, Integer> otherLettersToGroup;  // Sorted string to group id, for words outside a-z
+    private final IntBuffer wordsByLength;  // Word ids in order of length
+    private final IntBuffer lengthStarts;  // Words of length n are wordsByLength[lengthStarts[n]] up to wordsByLength[lengthStarts[n + 1]]
+
+    WordIndex(List<String> words) {
+        this(words, 1);
+    }
+
+    // Builds using up to the given number of threads; the index is identical for any thread count
+    WordIndex(List<String> words, int threads) {
+        signatureToGroup = new SignatureTable();
+        otherLettersToGroup = new HashMap<>();
+
+        // Group each shard of the word list independently, in parallel when threads allow
+        List<Shard> shards = groupShards(words, threads);
+
+        // Merge the shards in input order, numbering groups in order of first appearance
+        int[] wordGroups = new int[words.size()];
+        int groupCount = 0;
+        int maxLength = 0;
+        int totalLetters = 0;
+        for (Shard shard : shards) {
+            int[] shardToGlobal = new int[shard.groupCount];
+            for (int g = 0; g < shard.groupCount; g++) {
+                int group;
+                if (shard.otherKeys[g] != null) {
+                    Integer found = otherLettersToGroup.get(shard.otherKeys[g]);
+                    group = found == null ? SignatureTable.NOT_FOUND : found;
+                }
+                else {
+                    group = signatureToGroup.get(shard.lows[g], shard.highs[g]);
+                }
+                if (group == SignatureTable.NOT_FOUND) {
+                    group = groupCount++;
+                    if (shard.otherKeys[g] != null) {
+                        otherLettersToGroup.put(shard.otherKeys[g], group);
+                    }
+                    else {
+                        signatureToGroup.put(shard.lows[g], shard.highs[g], group);
+                    }
+                }
+                shardToGlobal[g] = group;
+            }
+            for (int i = 0; i < shard.wordGroups.length; i++) {
+                wordGroups[shard.start + i] = shardToGlobal[shard.wordGroups[i]];
+            }
+            maxLength = Math.max(maxLength, shard.maxLength);
+            totalLetters += shard.totalLetters;
+        }
+
+        // Counting sort by group keeps each group contiguous and in dictionary order
+        int[] groupStarts = new int[groupCount + 1];
+        for (int group : wordGroups) {
+            groupStarts[group + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            groupStarts[g + 1] += groupStarts[g];
+        }
+        int[] nextId = Arrays.copyOf(groupStarts, groupCount);
+        String[] ordered = new String[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            ordered[nextId[wordGroups[i]]++] = words.get(i);
+        }
+
+        // Copy the words into the arena in group order
+        char[] letters = new char[totalLetters];
+        int[] wordStarts = new int[ordered.length + 1];
+        for (int id = 0; id < ordered.length; id++) {
+            String word = ordered[id];
+            word.getChars(0, word.length(), letters, wordStarts[id]);
+            wordStarts[id + 1] = wordStarts[id] + word.length();
+        }
+
+        // Counting sort of word ids by length
+        int[] lengthStarts = new int[maxLength + 2];
+        for (String word : ordered) {
+            lengthStarts[word.length() + 1]++;
+        }
+        for (int n = 0; n <= maxLength; n++) {
+            lengthStarts[n + 1] += lengthStarts[n];
+        }
+        int[] nextSlot = Arrays.copyOf(lengthStarts, maxLength + 1);
+        int[] wordsByLength = new int[ordered.length];
+        for (int id = 0; id < ordered.length; id++) {
+            wordsByLength[nextSlot[ordered[id].length()]++] = id;
+        }
+
+        this.letters = CharBuffer.wrap(letters);
+        this.wordStarts = IntBuffer.wrap(wordStarts);
+        this.groupStarts = IntBuffer.wrap(groupStarts);
+        this.wordsByLength = IntBuffer.wrap(wordsByLength);
+        this.lengthStarts = IntBuffer.wrap(lengthStarts);
+    }
+
+    // Wraps the sections of a previously built index
+    WordIndex(CharBuffer letters, IntBuffer wordStarts, IntBuffer groupStarts, SignatureTable signatureToGroup,
+              IntBuffer wordsByLength, IntBuffer lengthStarts, IntBuffer otherGroups) {
+        this.letters = letters;
+        this.wordStarts = wordStarts;
+        this.groupStarts = groupStarts;
+        this.signatureToGroup = signatureToGroup;
+        this.wordsByLength = wordsByLength;
+        this.lengthStarts = lengthStarts;
+        // Only the few groups outside a-z need rehashing, keyed by the letters of their first word
+        otherLettersToGroup = new HashMap<>();
+        for (int i = 0; i < otherGroups.limit(); i++) {
+            int group = otherGroups.get(i);
+            otherLettersToGroup.put(sortLetters(word(groupStart(group))), group);
+        }
+    }
+
+    int size() {
+        return wordStarts.limit() - 1;
+    }
+
+    int groupCount() {
+        return groupStarts.limit() - 1;
+    }
+
+    String word(int id) {
+        char[] word = new char[length(id)];
+        int start = wordStarts.get(id);
+        for (int i = 0; i < word.length; i++) {
+            word[i] = letters.get(start + i);
+        }
+        return new String(word);
+    }
+
+    int length(int id) {
+        return wordStarts.get(id + 1) - wordStarts.get(id);
+    }
+
+    boolean contains(String word) {
+        return indexOf(word) != SignatureTable.NOT_FOUND;
+    }
+
+    // The id of the first copy of word, or NOT_FOUND
+    int indexOf(String word) {
+        int group = findGroup(word);
+        if (group == SignatureTable.NOT_FOUND) {
+            return SignatureTable.NOT_FOUND;
+        }
+        for (int id = groupStart(group); id < groupEnd(group); id++) {
+            if (matches(id, word)) {
+                return id;
+            }
+        }
+        return SignatureTable.NOT_FOUND;
+    }
+
+    int findGroup(String word) {
+        long low = LetterSignature.low(word);
+        long high = LetterSignature.high(word);
+        if (low == LetterSignature.INVALID || high == LetterSignature.INVALID) {
+            Integer group = otherLettersToGroup.get(sortLetters(word));
+            return group == null ? SignatureTable.NOT_FOUND : group;
+        }
+        return signatureToGroup.get(low, high);
+    }
+
+    int findGroup(long low, long high) {
+        return signatureToGroup.get(low, high);
+    }
+
+    int groupOf(int id) {
+        // Binary search for the last group starting at or before id; groups are never empty
+        int low = 0;
+        int high = groupCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (groupStarts.get(mid) <= id) {
+                low = mid;
+            }
+            else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    int groupStart(int group) {
+        return groupStarts.get(group);
+    }
+
+    int groupEnd(int group) {
+        return groupStarts.get(group + 1);
+    }
+
+    int groupSize(int group) {
+        return groupEnd(group) - groupStart(group);
+    }
+
+    // Number of words of the given length
+    int lengthBucketSize(int length) {
+        if (length < 0 || length + 1 >= lengthStarts.limit()) {
+            return 0;
+        }
+        return lengthStarts.get(length + 1) - lengthStarts.get(length);
+    }
+
+    // The i-th word id of the given length
+    int wordOfLength(int length, int i) {
+        return wordsByLength.get(lengthStarts.get(length) + i);
+    }
+
+    // Raw sections, for writing the index into an image
+    CharBuffer letters() {
+        return letters.duplicate();
+    }
+
+    IntBuffer wordStarts() {
+        return wordStarts.duplicate();
+    }
+
+    IntBuffer groupStarts() {
+        return groupStarts.duplicate();
+    }
+
+    SignatureTable signatureTable() {
+        return signatureToGroup;
+    }
+
+    IntBuffer wordsByLength() {
+        return wordsByLength.duplicate();
+    }
+
+    IntBuffer lengthStarts() {
+        return lengthStarts.duplicate();
+    }
+
+    IntBuffer otherGroups() {
+        int[] groups = new int[otherLettersToGroup.size()];
+        int i = 0;
+        for (int group : otherLettersToGroup.values()) {
+            groups[i++] = group;
+        }
+        Arrays.sort(groups);
+        return IntBuffer.wrap(groups);
+    }
+
+    boolean matches(int id, String word) {
+        if (length(id) != word.length()) {
+            return false;
+        }
+        int start = wordStarts.get(id);
+        for (int i = 0; i < word.length(); i++) {
+            if (letters.get(start + i) != word.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Shard> groupShards(List<String> words, int threads) {
+        int shardCount = threads <= 1 ? 1 : threads * SHARDS_PER_THREAD;
+        int shardSize = Math.max(MIN_SHARD_SIZE, (words.size() + shardCount - 1) / shardCount);
+        ArrayList<Shard> shards = new ArrayList<>();
+        for (int start = 0; start < words.size() || shards.isEmpty(); start += shardSize) {
+            shards.add(new Shard(words, start, Math.min(words.size(), start + shardSize)));
+        }
+
+        if (threads <= 1 || shards.size() == 1) {
+            for (Shard shard : shards) {
+                shard.call();
+            }
+            return shards;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<Shard> done : pool.invokeAll(shards)) {
+                done.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while building the word index", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Could not build the word index", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+        return shards;
+    }
+
+    // Signatures and shard-local anagram groups for one contiguous run of the word list
+    private static class Shard implements Callable<Shard> {
+        final List<String> words;
+        final int start;
+        final int[] wordGroups;  // Shard-local group of each word
+        int groupCount;
+        long[] lows;  // Signature of each shard-local group, in order of first appearance
+        long[] highs;
+        String[] otherKeys;  // Sorted letters of each group outside a-z, null for the rest
+        int maxLength;
+        int totalLetters;
+
+        Shard(List<String> words, int start, int end) {
+            this.words = words;
+            this.start = start;
+            this.wordGroups = new int[end - start];
+        }
+
+        @Override
+        public Shard call() {
+            SignatureTable signatureToGroup = new SignatureTable();
+            HashMap<String, Integer> otherLettersToGroup = new HashMap<>();
+            lows = new long[wordGroups.length];
+            highs = new long[wordGroups.length];
+            otherKeys = new String[wordGroups.length];
+            for (int i = 0; i < wordGroups.length; i++) {
+                String word = words.get(start + i);
+                long low = LetterSignature.low(word);
+                long high = LetterSignature.high(word);
+                int group;
+                if (low == LetterSignature.INVALID || high == LetterSignature.INVALID) {
+                    String sortedWord = sortLetters(word);
+                    Integer found = otherLettersToGroup.get(sortedWord);
+                    if (found == null) {
+                        found = groupCount++;
+                        otherLettersToGroup.put(sortedWord, found);
+                        otherKeys[found] = sortedWord;
+                    }
+                    group = found;
+                }
+                else {
+                    group = signatureToGroup.get(low, high);
+                    if (group == SignatureTable.NOT_FOUND) {
+                        group = groupCount++;
+                        signatureToGroup.put(low, high, group);
+                        lows[group] = low;
+                        highs[group] = high;
+                    }
+                }
+                wordGroups[i] = group;
+                maxLength = Math.max(maxLength, word.length());
+                totalLetters += word.length();
+            }
+            return this;
+        }
+    }
+
+    static String sortLetters(String unsorted) {
+        char[] arr = unsorted.toCharArray();
+        Arrays.sort(arr);
+        return new String(arr);
+    }
+}
@@ -0,0 +1,296 @@
+package com.google.engedu.anagrams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the indexed dictionary lookups against the bundled words.txt.
+ */
+public class AnagramDictionaryTest {
+
+    // Unit tests run from the module directory; the word list ships with the app
+    static final String WORDS_FILE = "../app/src/main/assets/words.txt";
+
+    private static AnagramDictionary dictionary;
+    private static List<String> words = new ArrayList<>();
+    private static HashMap<String, List<String>> sortedToWords = new HashMap<>();
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new AnagramDictionary(openWords());
+        BufferedReader in = new BufferedReader(openWords());
+        String line;
+        while ((line = in.readLine()) != null) {
+            String word = line.trim();
+            words.add(word);
+            String sortedWord = sortLetters(word);
+            if (!sortedToWords.containsKey(sortedWord)) {
+                sortedToWords.put(sortedWord, new ArrayList<String>());
+            }
+            sortedToWords.get(sortedWord).add(word);
+        }
+        in.close();
+    }
+
+    static Reader openWords() throws IOException {
+        return new InputStreamReader(new FileInputStream(WORDS_FILE), "UTF-8");
+    }
+
+    @Test
+    public void getAnagrams_matchesLinearScan() {
+        // Every 250th word keeps the quadratic reference scan fast enough
+        for (int i = 0; i < words.size(); i += 250) {
+            String word = words.get(i);
+            assertEquals(word, scanForAnagrams(word), dictionary.getAnagrams(word));
+        }
+    }
+
+    @Test
+    public void getAnagrams_knownGroup() {
+        assertEquals(Arrays.asList("opts", "post", "pots", "spot", "stop", "tops"), dictionary.getAnagrams("stop"));
+    }
+
+    @Test
+    public void getAnagrams_unknownLetters() {
+        assertTrue(dictionary.getAnagrams("qqqxz").isEmpty());
+        assertEquals(scanForAnagrams("qqqxz"), dictionary.getAnagrams("qqqxz"));
+    }
+
+    @Test
+    public void getAnagrams_lettersOutsideAlphabet() {
+        assertEquals(Arrays.asList("abb\u00e9"), dictionary.getAnagrams("abb\u00e9"));
+    }
+
+    @Test
+    public void getAnagramsWithOneMoreLetter_matchesSortedKeys() {
+        for (int i = 0; i < words.size(); i += 50) {
+            String word = words.get(i);
+            assertEquals(word, sortAndConcatenate(word), dictionary.getAnagramsWithOneMoreLetter(word));
+        }
+    }
+
+    @Test
+    public void oneMoreLetter_lazyAndCountAgreeWithList() {
+        for (int i = 0; i < words.size(); i += 300) {
+            String word = words.get(i);
+            List<String> expected = dictionary.getAnagramsWithOneMoreLetter(word);
+            ArrayList<String> iterated = new ArrayList<>();
+            for (String s : dictionary.iterateAnagramsWithOneMoreLetter(word)) {
+                iterated.add(s);
+            }
+            assertEquals(word, expected, iterated);
+            assertEquals(word, expected.size(), dictionary.countAnagramsWithOneMoreLetter(word));
+        }
+        assertEquals(0, dictionary.countAnagramsWithOneMoreLetter("qqqqqq"));
+        assertFalse(dictionary.iterateAnagramsWithOneMoreLetter("qqqqqq").iterator().hasNext());
+    }
+
+    @Test
+    public void getAnagramsWithMoreLetters_oneLetterMatchesSingleLetterQuery() {
+        for (int i = 0; i < words.size(); i += 500) {
+            String word = words.get(i);
+            if (!word.matches("[a-z]*")) {
+                continue;
+            }
+            HashSet<String> expected = new HashSet<>(dictionary.getAnagramsWithOneMoreLetter(word));
+            expected.removeAll(dictionary.getAnagrams(word));
+            assertEquals(word, expected, new HashSet<>(dictionary.getAnagramsWithMoreLetters(word, 1)));
+        }
+    }
+
+    @Test
+    public void getAnagramsWithMoreLetters_matchesLetterCountScan() {
+        for (int extra = 0; extra <= 3; extra++) {
+            for (int i = 7; i < words.size(); i += 2000) {
+                String word = words.get(i);
+                if (!word.matches("[a-z]*")) {
+                    continue;
+                }
+                HashSet<String> expected = new HashSet<>();
+                for (String candidate : words) {
+                    if (candidate.length() == word.length() + extra && containsLetters(candidate, word)) {
+                        expected.add(candidate);
+                    }
+                }
+                assertEquals(word + "+" + extra, expected, new HashSet<>(dictionary.getAnagramsWithMoreLetters(word, extra)));
+            }
+        }
+    }
+
+    @Test
+    public void getWordsFromLetters_matchesLetterCountScan() {
+        for (String rack : new String[] {"retains", "aeiou", "qzxj", "abcdefghij", "stopz", ""}) {
+            HashSet<String> expected = new HashSet<>();
+            for (String candidate : words) {
+                if (candidate.matches("[a-z]*") && containsLetters(rack, candidate)) {
+                    expected.add(candidate);
+                }
+            }
+            HashSet<String> found = new HashSet<>();
+            for (String word : dictionary.getWordsFromLetters(rack)) {
+                found.add(word);
+            }
+            assertEquals(rack, expected, found);
+        }
+    }
+
+    @Test
+    public void getWordsFromLetters_isLazy() {
+        Iterator<String> it = dictionary.getWordsFromLetters("abcdefghijklmnopqrstuvwxyzaeiouerst").iterator();
+        for (int i = 0; i < 5; i++) {
+            assertTrue(it.hasNext());
+            assertNotNull(it.next());
+        }
+        // Each iterator starts a fresh search
+        assertEquals(dictionary.getWordsFromLetters("stop").iterator().next(),
+                dictionary.getWordsFromLetters("stop").iterator().next());
+    }
+
+    @Test
+    public void isGoodWord_checksMembershipAndBase() {
+        assertTrue(dictionary.isGoodWord("stop", "pot"));
+        assertTrue(dictionary.isGoodWord("abb\u00e9", "ab\u00e9"));
+        assertFalse(dictionary.isGoodWord("spot", "pot"));
+        assertFalse(dictionary.isGoodWord("sotp", "pot"));
+        assertFalse(dictionary.isGoodWord("", "pot"));
+    }
+
+    @Test
+    public void areGoodWords_matchesIsGoodWord() {
+        // Real words, misspellings and extensions of the base, enough for several chunks
+        ArrayList<String> batch = new ArrayList<>();
+        for (int i = 0; i < words.size(); i += 2) {
+            String word = words.get(i);
+            batch.add(word);
+            batch.add(new StringBuilder(word).reverse().toString());
+        }
+        for (String base : new String[] {"st", "aa", "abab", "ing", "\u00e9", ""}) {
+            ArrayList<String> candidates = new ArrayList<>(batch);
+            candidates.add(base + "s");
+            candidates.add("ababab");
+            BitSet sequential = dictionary.areGoodWords(candidates, base);
+            BitSet parallel = dictionary.areGoodWords(candidates, base, 3);
+            for (int i = 0; i < candidates.size(); i++) {
+                boolean expected = dictionary.isGoodWord(candidates.get(i), base);
+                assertEquals(candidates.get(i) + " / " + base, expected, sequential.get(i));
+                assertEquals(candidates.get(i) + " / " + base, expected, parallel.get(i));
+            }
+            assertTrue(sequential.length() <= candidates.size());
+        }
+        assertTrue(dictionary.areGoodWords(new ArrayList<String>(), "pot", 4).isEmpty());
+    }
+
+    @Test
+    public void pickStarterWord_staysInDifficultyBand() throws Exception {
+        Random random = new Random(18);
+        for (int length = 3; length <= 7; length++) {
+            List<String> candidates = dictionary.getStarterCandidates(length);
+            for (int i = 1; i < candidates.size(); i++) {
+                assertTrue(candidates.get(i), dictionary.getDifficulty(candidates.get(i - 1))
+                        <= dictionary.getDifficulty(candidates.get(i)));
+            }
+            float easiest = dictionary.getDifficulty(candidates.get(0));
+            float hardest = dictionary.getDifficulty(candidates.get(candidates.size() - 1));
+            float middle = (easiest + hardest) / 2;
+            for (int pick = 0; pick < 50; pick++) {
+                String word = dictionary.pickStarterWord(length, middle - 0.25f, middle + 0.25f, random);
+                assertEquals(length, word.length());
+                assertTrue(word, Math.abs(dictionary.getDifficulty(word) - middle) <= 0.25f);
+                assertTrue(word, candidates.contains(word));
+            }
+            // Anagrams tie, so the easiest band can hold more than one word
+            assertEquals(easiest, dictionary.getDifficulty(dictionary.pickStarterWord(length, easiest, easiest, random)), 0);
+        }
+        try {
+            dictionary.pickStarterWord(5, 100, 200, random);
+            fail();
+        } catch (NoStarterWordException expected) {
+            assertEquals(5, expected.getWordLength());
+        }
+    }
+
+    @Test
+    public void pickGoodStarterWord_growsAndHasEnoughAnagrams() throws Exception {
+        AnagramDictionary fresh = new AnagramDictionary(openWords());
+        for (int length = 3; length <= 7; length++) {
+            String starter = fresh.pickGoodStarterWord();
+            assertEquals(length, starter.length());
+            int possibleAnagrams = fresh.getAnagrams(starter).size() + fresh.getAnagramsWithOneMoreLetter(starter).size();
+            assertTrue(starter, possibleAnagrams >= 5);
+        }
+        // Length stops growing at the maximum
+        assertEquals(7, fresh.pickGoodStarterWord().length());
+    }
+
+    @Test(expected = NoStarterWordException.class)
+    public void pickGoodStarterWord_emptyBucket() throws Exception {
+        new AnagramDictionary(new StringReader("cat\ndog\n")).pickGoodStarterWord();
+    }
+
+    // The original implementation: sort every dictionary entry and compare
+    private static List<String> scanForAnagrams(String targetWord) {
+        ArrayList<String> result = new ArrayList<>();
+        String sortedTarget = sortLetters(targetWord);
+        for (String s : words) {
+            if (sortedTarget.length() == s.length() && sortedTarget.equals(sortLetters(s))) {
+                result.add(s);
+            }
+        }
+        return result;
+    }
+
+    // The original one-more-letter lookup: append each letter and re-sort
+    private static List<String> sortAndConcatenate(String word) {
+        ArrayList<String> result = new ArrayList<>(scanGroup(sortLetters(word)));
+        for (char c = 'a'; c <= 'z'; c++) {
+            result.addAll(scanGroup(sortLetters(word + c)));
+        }
+        return result;
+    }
+
+    private static List<String> scanGroup(String sortedWord) {
+        List<String> group = sortedToWords.get(sortedWord);
+        return group == null ? new ArrayList<String>() : group;
+    }
+
+    // True if candidate has at least as many of every letter as letters
+    private static boolean containsLetters(String candidate, String letters) {
+        int[] counts = new int[128];
+        for (int i = 0; i < candidate.length(); i++) {
+            char c = candidate.charAt(i);
+            if (c >= counts.length) {
+                return false;  // The trie never returns words outside a-z
+            }
+            counts[c]++;
+        }
+        for (int i = 0; i < letters.length(); i++) {
+            if (--counts[letters.charAt(i)] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String sortLetters(String unsorted) {
+        char[] arr = unsorted.toCharArray();
+        Arrays.sort(arr);
+        return new String(arr);
+    }
+}
@@ -0,0 +1,41 @@
+package com.google.engedu.anagrams;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class AnswerSetTest {
+
+    @Test
+    public void markFound_checksAndMarksOnce() {
+        AnswerSet answers = new AnswerSet(Arrays.asList("opts", "post", "pots", "spot", "stop", "tops"));
+        assertTrue(answers.markFound("spot"));
+        assertFalse(answers.markFound("spot"));
+        assertFalse(answers.markFound("sotp"));
+        assertTrue(answers.isAnswer("spot"));
+        assertEquals(1, answers.getFoundCount());
+        assertEquals(6, answers.size());
+    }
+
+    @Test
+    public void getRemaining_keepsOriginalOrder() {
+        AnswerSet answers = new AnswerSet(Arrays.asList("opts", "post", "pots", "spot", "stop", "tops"));
+        answers.markFound("opts");
+        answers.markFound("stop");
+        answers.markFound("tops");
+        assertEquals(Arrays.asList("post", "pots", "spot"), answers.getRemaining());
+        assertEquals(Collections.<String>emptyList(), new AnswerSet(new ArrayList<String>()).getRemaining());
+    }
+
+    @Test
+    public void duplicates_markTheFirstCopy() {
+        // Dictionary results never repeat a word, but List.remove also took the first copy
+        AnswerSet answers = new AnswerSet(Arrays.asList("stop", "post", "stop"));
+        assertTrue(answers.markFound("stop"));
+        assertEquals(Arrays.asList("post", "stop"), answers.getRemaining());
+    }
+}
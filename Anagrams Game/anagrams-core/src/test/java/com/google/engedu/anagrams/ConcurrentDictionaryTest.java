@@ -0,0 +1,111 @@
+package com.google.engedu.anagrams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Plays many games at once against one shared dictionary, each thread through its own
+ * GameSession, and checks every answer against a dictionary only the test thread touches.
+ */
+public class ConcurrentDictionaryTest {
+
+    private static final int THREADS = 8;
+    private static final int GAMES_PER_THREAD = 40;
+
+    private static AnagramDictionary reference;
+
+    @BeforeClass
+    public static void loadReference() throws IOException {
+        reference = new AnagramDictionary(AnagramDictionaryTest.openWords());
+    }
+
+    @Test
+    public void sessions_shareOneDictionaryAcrossThreads() throws Exception {
+        // A fresh dictionary, so the threads also race to build its lazy tables
+        final AnagramDictionary shared = new AnagramDictionary(AnagramDictionaryTest.openWords());
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<List<Round>>> results = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                final long seed = t;
+                results.add(pool.submit(new Callable<List<Round>>() {
+                    @Override
+                    public List<Round> call() throws Exception {
+                        start.await();
+                        ArrayList<Round> rounds = new ArrayList<>();
+                        for (int game = 0; game < GAMES_PER_THREAD; game++) {
+                            GameSession session = new GameSession(shared, new Random(seed * GAMES_PER_THREAD + game));
+                            for (int length = 3; length <= 7; length++) {
+                                String starter = session.pickGoodStarterWord();
+                                rounds.add(new Round(length, starter, shared.getAnagramsWithOneMoreLetter(starter),
+                                        shared.getAnagramsWithMoreLetters(starter, 2)));
+                            }
+                        }
+                        return rounds;
+                    }
+                }));
+            }
+            start.countDown();
+
+            for (Future<List<Round>> result : results) {
+                for (Round round : result.get(60, TimeUnit.SECONDS)) {
+                    assertEquals(round.starter, round.length, round.starter.length());
+                    assertEquals(round.starter, reference.getAnagramsWithOneMoreLetter(round.starter), round.oneMore);
+                    assertEquals(round.starter, reference.getAnagramsWithMoreLetters(round.starter, 2), round.twoMore);
+                    assertTrue(round.starter, reference.getAnagrams(round.starter).size()
+                            + round.oneMore.size() >= 5);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sessions_keepTheirOwnWordLength() throws Exception {
+        GameSession first = new GameSession(reference, new Random(1));
+        GameSession second = new GameSession(reference, new Random(1));
+        assertEquals(3, first.pickGoodStarterWord().length());
+        assertEquals(4, first.pickGoodStarterWord().length());
+        assertEquals(3, second.pickGoodStarterWord().length());
+        assertEquals(5, first.getWordLength());
+        assertEquals(4, second.getWordLength());
+    }
+
+    @Test
+    public void sessions_withTheSameSeedPickTheSameWords() throws Exception {
+        GameSession first = new GameSession(reference, new Random(7));
+        GameSession second = new GameSession(reference, new Random(7));
+        for (int round = 0; round < 5; round++) {
+            assertEquals(first.pickGoodStarterWord(), second.pickGoodStarterWord());
+        }
+    }
+
+    private static class Round {
+        final int length;
+        final String starter;
+        final List<String> oneMore;
+        final List<String> twoMore;
+
+        Round(int length, String starter, List<String> oneMore, List<String> twoMore) {
+            this.length = length;
+            this.starter = starter;
+            this.oneMore = oneMore;
+            this.twoMore = twoMore;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.google.engedu.anagrams;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the index keeps nothing per word beyond its arrays. The retained heap against the
+ * collection-based layout it replaced is measured by DictionaryFootprint in the benchmarks module.
+ */
+public class DictionaryFootprintTest {
+
+    @Test
+    public void compactIndex_arraysHoldOnlyTheWords() throws IOException {
+        List<String> words = AnagramDictionary.readWords(AnagramDictionaryTest.openWords());
+        WordIndex index = new WordIndex(words);
+        int totalLetters = 0;
+        int maxLength = 0;
+        HashSet<String> groups = new HashSet<>();
+        for (String word : words) {
+            totalLetters += word.length();
+            maxLength = Math.max(maxLength, word.length());
+            groups.add(WordIndex.sortLetters(word));
+        }
+
+        // One arena char per letter and one int per word, group and length
+        assertEquals(totalLetters, index.letters().capacity());
+        assertEquals(words.size() + 1, index.wordStarts().capacity());
+        assertEquals(groups.size() + 1, index.groupStarts().capacity());
+        assertEquals(words.size(), index.wordsByLength().capacity());
+        assertEquals(maxLength + 2, index.lengthStarts().capacity());
+
+        // The signature table is a power of two at most half full, so at most four slots per group
+        SignatureTable table = index.signatureTable();
+        assertEquals(0, table.capacity() & (table.capacity() - 1));
+        assertTrue(table.size() * 2 <= table.capacity());
+        assertTrue(table.capacity() <= 4 * groups.size());
+        assertEquals(groups.size(), table.size() + index.otherGroups().limit());
+    }
+}
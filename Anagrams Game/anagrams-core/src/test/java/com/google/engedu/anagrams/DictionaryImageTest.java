@@ -0,0 +1,69 @@
+package com.google.engedu.anagrams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round-trips words.txt through a compiled image.
+ */
+public class DictionaryImageTest {
+
+    private static AnagramDictionary fromText;
+    private static long checksum;
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        fromText = new AnagramDictionary(AnagramDictionaryTest.openWords());
+        checksum = DictionaryImage.checksum(new FileInputStream(AnagramDictionaryTest.WORDS_FILE));
+    }
+
+    @Test
+    public void mappedImage_answersLikeText() throws Exception {
+        File image = compile();
+        AnagramDictionary fromImage = AnagramDictionary.fromImage(image, checksum);
+
+        for (String word : new String[] {"stop", "post", "abb\u00e9", "zzz", "", "aardvark", "tea"}) {
+            assertEquals(word, fromText.getAnagrams(word), fromImage.getAnagrams(word));
+            assertEquals(word, fromText.getAnagramsWithOneMoreLetter(word), fromImage.getAnagramsWithOneMoreLetter(word));
+            assertEquals(word, fromText.isGoodWord(word, "q"), fromImage.isGoodWord(word, "q"));
+        }
+        assertEquals(3, fromImage.pickGoodStarterWord().length());
+    }
+
+    @Test
+    public void imageOfImage_isIdentical() throws Exception {
+        File image = compile();
+        File copy = File.createTempFile("words", ".idx");
+        copy.deleteOnExit();
+        AnagramDictionary.fromImage(image, checksum).writeImage(copy, checksum);
+        assertEquals(DictionaryImage.checksum(new FileInputStream(image)), DictionaryImage.checksum(new FileInputStream(copy)));
+    }
+
+    @Test(expected = IOException.class)
+    public void staleChecksum_isRejected() throws Exception {
+        AnagramDictionary.fromImage(compile(), checksum + 1);
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedImage_isRejected() throws Exception {
+        File image = compile();
+        RandomAccessFile file = new RandomAccessFile(image, "rw");
+        file.setLength(file.length() - 8);
+        file.close();
+        AnagramDictionary.fromImage(image, checksum);
+    }
+
+    private static File compile() throws IOException {
+        File image = File.createTempFile("words", ".idx");
+        image.deleteOnExit();
+        fromText.writeImage(image, checksum);
+        return image;
+    }
+}
@@ -0,0 +1,166 @@
+package com.google.engedu.anagrams;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a dictionary updated in place answers every query exactly as one built from scratch
+ * over the same words would, and that queries already running keep their snapshot.
+ */
+public class DictionaryUpdateTest {
+
+    private static List<String> words;
+
+    private AnagramDictionary dictionary;
+
+    @BeforeClass
+    public static void loadWords() throws IOException {
+        words = AnagramDictionary.readWords(AnagramDictionaryTest.openWords());
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        dictionary = new AnagramDictionary(AnagramDictionaryTest.openWords());
+    }
+
+    @Test
+    public void updates_matchAFreshBuild() throws IOException {
+        LinkedHashSet<String> live = new LinkedHashSet<>(words);
+        Random random = new Random(16);
+        for (int round = 0; round < 3; round++) {
+            ArrayList<String> added = new ArrayList<>();
+            ArrayList<String> removed = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                // Drop real words, restore earlier drops, and add made-up anagrams of real words
+                String word = words.get(random.nextInt(words.size()));
+                removed.add(word);
+                added.add(shuffle(word, random));
+                if (round > 0 && i % 4 == 0) {
+                    added.add(words.get(random.nextInt(words.size())));
+                }
+            }
+            dictionary.updateWords(added, removed);
+            live.removeAll(removed);
+            live.addAll(added);
+            assertEquals(round + 1, dictionary.getVersion());
+            assertSameAnswers(new AnagramDictionary(new StringReader(join(live))), new ArrayList<>(live));
+        }
+    }
+
+    @Test
+    public void largeUpdates_compactIntoANewBase() throws IOException {
+        ArrayList<String> removed = new ArrayList<>(words.subList(0, words.size() / 2));
+        dictionary.updateWords(Collections.<String>emptyList(), removed);
+        ArrayList<String> live = new ArrayList<>(words.subList(words.size() / 2, words.size()));
+        assertSameAnswers(new AnagramDictionary(new StringReader(join(live))), live);
+    }
+
+    @Test
+    public void addAndRemove_singleWords() {
+        assertFalse(dictionary.isGoodWord("stopz", "pot"));
+        dictionary.addWord("stopz");
+        assertTrue(dictionary.isGoodWord("stopz", "pot"));
+        assertTrue(dictionary.getAnagramsWithOneMoreLetter("stop").contains("stopz"));
+        dictionary.removeWord("stop");
+        assertFalse(dictionary.isGoodWord("stop", "pot"));
+        assertFalse(dictionary.getAnagrams("pots").contains("stop"));
+        assertTrue(dictionary.getAnagrams("pots").contains("spot"));
+        dictionary.removeWord("stopz");
+        dictionary.addWord("stop");
+        assertEquals(6, dictionary.getAnagrams("stop").size());
+    }
+
+    @Test
+    public void applyDelta_addsAndRemoves() throws IOException {
+        dictionary.applyDelta(new StringReader("# custom words\n+stopz\n\n-stop\n"));
+        assertEquals(1, dictionary.getVersion());
+        assertTrue(dictionary.isGoodWord("stopz", "pot"));
+        assertFalse(dictionary.isGoodWord("stop", "pot"));
+    }
+
+    @Test(expected = IOException.class)
+    public void applyDelta_rejectsUnmarkedLines() throws IOException {
+        dictionary.applyDelta(new StringReader("+stopz\nstop\n"));
+    }
+
+    @Test
+    public void runningQueries_keepTheirSnapshot() {
+        List<String> before = dictionary.getAnagramsWithOneMoreLetter("stop");
+        Iterator<String> it = dictionary.iterateAnagramsWithOneMoreLetter("stop").iterator();
+        it.next();
+        dictionary.updateWords(Collections.singletonList("stopz"), before);
+        ArrayList<String> seen = new ArrayList<>(Collections.singletonList(before.get(0)));
+        while (it.hasNext()) {
+            seen.add(it.next());
+        }
+        assertEquals(before, seen);
+        assertEquals(Collections.singletonList("stopz"), dictionary.getAnagramsWithOneMoreLetter("stop"));
+    }
+
+    private void assertSameAnswers(AnagramDictionary expected, List<String> live) {
+        for (int length = 3; length <= 7; length++) {
+            assertEquals("length " + length, new HashSet<>(expected.getStarterCandidates(length)),
+                    new HashSet<>(dictionary.getStarterCandidates(length)));
+        }
+        for (int i = 0; i < live.size(); i += 97) {
+            String word = live.get(i);
+            assertTrue(word, inDictionary(dictionary, word));
+            assertEquals(word, new HashSet<>(expected.getAnagrams(word)), new HashSet<>(dictionary.getAnagrams(word)));
+            assertEquals(word, new HashSet<>(expected.getAnagramsWithOneMoreLetter(word)),
+                    new HashSet<>(dictionary.getAnagramsWithOneMoreLetter(word)));
+            assertEquals(word, expected.countAnagramsWithOneMoreLetter(word),
+                    dictionary.countAnagramsWithOneMoreLetter(word));
+            assertEquals(word, new HashSet<>(expected.getAnagramsWithMoreLetters(word, 2)),
+                    new HashSet<>(dictionary.getAnagramsWithMoreLetters(word, 2)));
+        }
+        for (String removed : words) {
+            assertEquals(removed, inDictionary(expected, removed), inDictionary(dictionary, removed));
+        }
+        assertEquals(asSet(expected.getWordsFromLetters("retains")), asSet(dictionary.getWordsFromLetters("retains")));
+    }
+
+    // No word contains a NUL, so isGoodWord comes down to membership
+    private static boolean inDictionary(AnagramDictionary dictionary, String word) {
+        return dictionary.isGoodWord(word, "\u0000");
+    }
+
+    private static HashSet<String> asSet(Iterable<String> words) {
+        HashSet<String> set = new HashSet<>();
+        for (String word : words) {
+            set.add(word);
+        }
+        return set;
+    }
+
+    private static String shuffle(String word, Random random) {
+        char[] letters = word.toCharArray();
+        for (int i = letters.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            char swap = letters[i];
+            letters[i] = letters[j];
+            letters[j] = swap;
+        }
+        return new String(letters) + (char) ('a' + random.nextInt(26));
+    }
+
+    private static String join(Iterable<String> words) {
+        StringBuilder text = new StringBuilder();
+        for (String word : words) {
+            text.append(word).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.google.engedu.anagrams;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void histogram_bucketsHoldTheirValues() {
+        Random random = new Random(17);
+        for (int i = 0; i < 100000; i++) {
+            long value = random.nextLong() >>> (1 + random.nextInt(63));
+            int bucket = LatencyHistogram.bucketOf(value);
+            assertTrue(value + "", value <= LatencyHistogram.highestInBucket(bucket));
+            assertTrue(value + "", bucket == 0 || value > LatencyHistogram.highestInBucket(bucket - 1));
+            // Within 1/64 of the true value
+            assertTrue(value + "", LatencyHistogram.highestInBucket(bucket) - value <= value / 64);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestInBucket(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void histogram_percentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(99));
+        for (long value = 1; value <= 100000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(100000, histogram.getCount());
+        assertEquals(100000, histogram.getMax());
+        assertEquals(50000.5, histogram.getMean(), 1e-9);
+        assertEquals(50000, histogram.getValueAtPercentile(50), 50000 / 64);
+        assertEquals(99000, histogram.getValueAtPercentile(99), 99000 / 64);
+        assertEquals(100000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void dictionary_recordsHotPaths() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry();
+        AnagramDictionary.setDefaultMetrics(metrics);
+        AnagramDictionary dictionary;
+        try {
+            dictionary = new AnagramDictionary(AnagramDictionaryTest.openWords());
+        } finally {
+            AnagramDictionary.setDefaultMetrics(EngineMetrics.NONE);
+        }
+        assertSame(metrics, dictionary.getMetrics());
+        assertEquals(1, metrics.getHistogram(EngineMetrics.LOAD).getCount());
+
+        GameSession session = new GameSession(dictionary, new Random(3));
+        int results = 0;
+        for (int round = 0; round < 5; round++) {
+            results += dictionary.getAnagramsWithOneMoreLetter(session.pickGoodStarterWord()).size();
+        }
+        assertEquals(5, metrics.getHistogram(EngineMetrics.STARTER_PICK).getCount());
+        assertEquals(5, metrics.getHistogram(EngineMetrics.STARTER_TABLE_BUILD).getCount());
+        assertTrue(metrics.getCount(EngineMetrics.STARTER_REJECTED) > 0);
+        assertEquals(5, metrics.getHistogram(EngineMetrics.ONE_MORE_LETTER).getCount());
+        assertEquals(results, metrics.getCount(EngineMetrics.ONE_MORE_LETTER_RESULTS));
+
+        try {
+            dictionary.pickStarterWord(AnagramDictionary.MAX_WORD_LENGTH + 1, new Random());
+            fail();
+        } catch (NoStarterWordException expected) {
+            assertEquals(1, metrics.getCount(EngineMetrics.STARTER_NONE));
+        }
+
+        String report = metrics.report();
+        assertTrue(report, report.contains(EngineMetrics.ONE_MORE_LETTER + " "));
+        assertTrue(report, report.contains("p99.9"));
+
+        dictionary.setMetrics(EngineMetrics.NONE);
+        dictionary.getAnagramsWithOneMoreLetter("stop");
+        assertEquals(5, metrics.getHistogram(EngineMetrics.ONE_MORE_LETTER).getCount());
+    }
+}
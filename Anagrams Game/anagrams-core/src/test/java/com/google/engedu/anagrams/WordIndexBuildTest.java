@@ -0,0 +1,68 @@
+package com.google.engedu.anagrams;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that a parallel build produces exactly the index a single thread does. How the build
+ * scales is measured by DictionaryLoadBenchmark in the benchmarks module.
+ */
+public class WordIndexBuildTest {
+
+    private static List<String> words;
+
+    @BeforeClass
+    public static void loadWords() throws IOException {
+        words = AnagramDictionary.readWords(AnagramDictionaryTest.openWords());
+    }
+
+    @Test
+    public void parallelBuild_isIdenticalForAnyThreadCount() throws IOException {
+        List<String> large = synthetic(words, 4);
+        long expected = imageChecksum(new WordIndex(large, 1));
+        for (int threads : new int[] {2, 3, 8}) {
+            assertEquals("threads=" + threads, expected, imageChecksum(new WordIndex(large, threads)));
+        }
+    }
+
+    @Test
+    public void parallelBuild_emptyAndTinyLists() throws IOException {
+        assertEquals(0, new WordIndex(new ArrayList<String>(), 4).size());
+        AnagramDictionary tiny = new AnagramDictionary(new StringReader("stop\npots\n"), 4);
+        assertEquals(2, tiny.getAnagrams("tops").size());
+    }
+
+    // words.txt repeated, with each copy's words extended by a distinct letter suffix
+    static List<String> synthetic(List<String> base, int copies) {
+        ArrayList<String> result = new ArrayList<>(base.size() * copies);
+        for (int copy = 0; copy < copies; copy++) {
+            StringBuilder suffix = new StringBuilder();
+            for (int n = copy; n > 0; n /= 26) {
+                suffix.append((char) ('a' + n % 26));
+            }
+            for (String word : base) {
+                result.add(word + suffix);
+            }
+        }
+        return result;
+    }
+
+    private static long imageChecksum(WordIndex index) throws IOException {
+        File image = File.createTempFile("words", ".idx");
+        try {
+            DictionaryImage.write(index, 0, image);
+            return DictionaryImage.checksum(new FileInputStream(image));
+        } finally {
+            image.delete();
+        }
+    }
+}
@@ -20,10 +20,12 @@ import android.content.res.AssetManager;
 import android.os.Bundle;
 import android.support.design.widget.FloatingActionButton;
 import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.Toolbar;
 import android.text.Html;
 import android.text.InputType;
-import android.text.TextUtils;
+import android.util.Log;
 import android.view.KeyEvent;
 import android.view.Menu;
 import android.view.MenuItem;
@@ -34,33 +36,73 @@ import android.widget.EditText;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.google.engedu.dictionary.DictionaryCache;
+
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 
 public class AnagramsActivity extends AppCompatActivity {
 
+    private static final String TAG = "AnagramsActivity";
+    private static final String DICTIONARY_KEY = "anagrams/words.txt";
+    private static final String DICTIONARY_IMAGE = "words.idx";
     public static final String START_MESSAGE = "Find as many words as possible that can be formed by adding one letter to <big>%s</big> (but that do not contain the substring %s).";
-    private AnagramDictionary dictionary;
+    private static final Executor DICTIONARY_LOADER = Executors.newSingleThreadExecutor();
+    private static final MetricsRegistry METRICS = new MetricsRegistry();  // Dumped to the log as each activity closes
+    private FutureTask<DictionaryCache.Handle<AnagramDictionary>> dictionaryLoad;
+    private DictionaryCache.Handle<AnagramDictionary> dictionaryHandle;
+    private AnagramDictionary dictionary;  // Null until dictionaryLoad completes
+    private GameSession session;  // This game's word length and random picks; the cached dictionary is shared
     private String currentWord;
-    private List<String> anagrams;
+    private AnswerSet anagrams;  // This round's answers, with the ones found so far marked off
+    private final ResultLogAdapter resultLog = new ResultLogAdapter();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        AnagramDictionary.setDefaultMetrics(METRICS);
         setContentView(R.layout.activity_anagrams);
         Toolbar toolbar = (Toolbar) findViewById(R.id.toolbar);
         setSupportActionBar(toolbar);
-        AssetManager assetManager = getAssets();
-        try {
-            InputStream inputStream = assetManager.open("words.txt");
-            dictionary = new AnagramDictionary(new InputStreamReader(inputStream));
-        } catch (IOException e) {
-            Toast toast = Toast.makeText(this, "Could not load dictionary", Toast.LENGTH_LONG);
-            toast.show();
-        }
+        // Load the dictionary off the UI thread; play stays disabled until it is ready
+        final AssetManager assetManager = getAssets();
+        TextView gameStatus = (TextView) findViewById(R.id.gameStatusView);
+        gameStatus.setText("Loading dictionary...");
+        dictionaryLoad = new FutureTask<DictionaryCache.Handle<AnagramDictionary>>(
+                new Callable<DictionaryCache.Handle<AnagramDictionary>>() {
+            @Override
+            public DictionaryCache.Handle<AnagramDictionary> call() throws IOException {
+                // Shared with earlier instances of this activity, e.g. before a rotation
+                return DictionaryCache.getInstance().acquire(DICTIONARY_KEY, new DictionaryCache.Loader<AnagramDictionary>() {
+                    @Override
+                    public AnagramDictionary load() throws IOException {
+                        return loadDictionary(assetManager);
+                    }
+                });
+            }
+        }) {
+            @Override
+            protected void done() {
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onDictionaryLoaded();
+                    }
+                });
+            }
+        };
+        DICTIONARY_LOADER.execute(dictionaryLoad);
+        RecyclerView resultView = (RecyclerView) findViewById(R.id.resultView);
+        resultView.setLayoutManager(new LinearLayoutManager(this));
+        resultView.setAdapter(resultLog);
         // Set up the EditText box to process the content of the box when the user hits 'enter'
         final EditText editText = (EditText) findViewById(R.id.editText);
         editText.setRawInputType(InputType.TYPE_CLASS_TEXT);
@@ -79,20 +121,70 @@ public class AnagramsActivity extends AppCompatActivity {
         });
     }
 
+    // Called on the UI thread once the background load has finished, successfully or not
+    private void onDictionaryLoaded() {
+        try {
+            dictionaryHandle = dictionaryLoad.get();
+        } catch (InterruptedException | ExecutionException e) {
+            if (!isDestroyed()) {
+                Toast toast = Toast.makeText(this, "Could not load dictionary", Toast.LENGTH_LONG);
+                toast.show();
+            }
+            return;
+        }
+        Log.d(TAG, DictionaryCache.getInstance().getStats());
+        if (isDestroyed()) {
+            // Finished loading after the activity went away
+            dictionaryHandle.release();
+            return;
+        }
+        dictionary = dictionaryHandle.get();
+        session = new GameSession(dictionary);
+        TextView gameStatus = (TextView) findViewById(R.id.gameStatusView);
+        gameStatus.setText("Press 'play' to get started");
+        FloatingActionButton fab = (FloatingActionButton) findViewById(R.id.fab);
+        fab.setEnabled(true);
+    }
+
+    @Override
+    protected void onDestroy() {
+        Log.d(TAG, "anagram engine metrics\n" + METRICS.report());
+        // Keeps the dictionary cached for a recreated activity; a load in flight is released when it finishes
+        if (dictionaryHandle != null) {
+            dictionaryHandle.release();
+        }
+        super.onDestroy();
+    }
+
+    // Maps the image compiled on an earlier start, or parses words.txt and compiles the image
+    // for next time if there is none or words.txt has changed since
+    private AnagramDictionary loadDictionary(AssetManager assetManager) throws IOException {
+        File image = new File(getCacheDir(), DICTIONARY_IMAGE);
+        long checksum = DictionaryImage.checksum(assetManager.open("words.txt"));
+        try {
+            return AnagramDictionary.fromImage(image, checksum);
+        } catch (IOException e) {
+            InputStream inputStream = assetManager.open("words.txt");
+            AnagramDictionary parsed = new AnagramDictionary(new InputStreamReader(inputStream));
+            try {
+                parsed.writeImage(image, checksum);
+            } catch (IOException writeFailed) {
+                // Not fatal: the next start parses the text again
+                image.delete();
+            }
+            return parsed;
+        }
+    }
+
     private void processWord(EditText editText) {
-        TextView resultView = (TextView) findViewById(R.id.resultView);
+        RecyclerView resultView = (RecyclerView) findViewById(R.id.resultView);
         String word = editText.getText().toString().trim().toLowerCase();
-        if (word.length() == 0) {
+        if (word.length() == 0 || dictionary == null || currentWord == null) {
             return;
         }
-        String color = "#cc0029";
-        if (dictionary.isGoodWord(word, currentWord) && anagrams.contains(word)) {
-            anagrams.remove(word);
-            color = "#00aa29";
-        } else {
-            word = "X " + word;
-        }
-        resultView.append(Html.fromHtml(String.format("<font color=%s>%s</font><BR>", color, word)));
+        boolean correct = dictionary.isGoodWord(word, currentWord) && anagrams.markFound(word);
+        resultLog.addGuess(word, correct);
+        resultView.scrollToPosition(resultLog.getItemCount() - 1);
         editText.setText("");
         FloatingActionButton fab = (FloatingActionButton) findViewById(R.id.fab);
         fab.show();
@@ -124,14 +216,23 @@ public class AnagramsActivity extends AppCompatActivity {
         TextView gameStatus = (TextView) findViewById(R.id.gameStatusView);
         FloatingActionButton fab = (FloatingActionButton) findViewById(R.id.fab);
         EditText editText = (EditText) findViewById(R.id.editText);
-        TextView resultView = (TextView) findViewById(R.id.resultView);
+        if (dictionary == null) {
+            // Still loading
+            return true;
+        }
         if (currentWord == null) {
-            currentWord = dictionary.pickGoodStarterWord();
-            anagrams = dictionary.getAnagramsWithOneMoreLetter(currentWord);
+            try {
+                currentWord = session.pickGoodStarterWord();
+            } catch (NoStarterWordException e) {
+                Toast toast = Toast.makeText(this, "No starting word found", Toast.LENGTH_LONG);
+                toast.show();
+                return true;
+            }
+            anagrams = new AnswerSet(dictionary.getAnagramsWithOneMoreLetter(currentWord));
             gameStatus.setText(Html.fromHtml(String.format(START_MESSAGE, currentWord.toUpperCase(), currentWord)));
             fab.setImageResource(android.R.drawable.ic_menu_help);
             fab.hide();
-            resultView.setText("");
+            resultLog.clear();
             editText.setText("");
             editText.setEnabled(true);
             editText.requestFocus();
@@ -142,7 +243,7 @@ public class AnagramsActivity extends AppCompatActivity {
             editText.setEnabled(false);
             fab.setImageResource(android.R.drawable.ic_media_play);
             currentWord = null;
-            resultView.append(TextUtils.join("\n", anagrams));
+            resultLog.addRevealed(anagrams.getRemaining());
             gameStatus.append(" Hit 'Play' to start again");
         }
         return true;
@@ -0,0 +1,96 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.anagrams;
+
+import android.graphics.Color;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The guesses and revealed answers of a round, one recycled row each. Rows are styled with colors
+ * parsed once, so adding a guess costs the same however long the log already is.
+ */
+public class ResultLogAdapter extends RecyclerView.Adapter<ResultLogAdapter.Row> {
+
+    // Row styles, small enough that boxing them never allocates
+    private static final int REVEALED = 0;
+    private static final int CORRECT = 1;
+    private static final int WRONG = 2;
+
+    private final int[] colors = {0, Color.parseColor("#00aa29"), Color.parseColor("#cc0029")};
+    private final ArrayList<String> texts = new ArrayList<>();
+    private final ArrayList<Integer> styles = new ArrayList<>();
+    private boolean plainColorRead;  // REVEALED rows keep the row layout's own text color
+
+    public void addGuess(String word, boolean correct) {
+        texts.add(correct ? word : "X " + word);
+        styles.add(correct ? CORRECT : WRONG);
+        notifyItemInserted(texts.size() - 1);
+    }
+
+    // Appends the answers the player missed, in order
+    public void addRevealed(List<String> words) {
+        int start = texts.size();
+        for (String word : words) {
+            texts.add(word);
+            styles.add(REVEALED);
+        }
+        notifyItemRangeInserted(start, words.size());
+    }
+
+    public void clear() {
+        int removed = texts.size();
+        texts.clear();
+        styles.clear();
+        notifyItemRangeRemoved(0, removed);
+    }
+
+    @Override
+    public int getItemCount() {
+        return texts.size();
+    }
+
+    @Override
+    public Row onCreateViewHolder(ViewGroup parent, int viewType) {
+        TextView view = (TextView) LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.result_item, parent, false);
+        if (!plainColorRead) {
+            colors[REVEALED] = view.getCurrentTextColor();
+            plainColorRead = true;
+        }
+        return new Row(view);
+    }
+
+    @Override
+    public void onBindViewHolder(Row row, int position) {
+        row.text.setText(texts.get(position));
+        row.text.setTextColor(colors[styles.get(position)]);
+    }
+
+    static class Row extends RecyclerView.ViewHolder {
+        final TextView text;
+
+        Row(TextView text) {
+            super(text);
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.google.engedu.anagrams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Query hot paths of the dictionary, over words.txt and synthetic dictionaries 10 and 100 times its size.
+ * Throughput and sampled latency (with percentiles) are both reported.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnagramDictionaryBenchmark {
+
+    private static final int QUERY_COUNT = 4096;  // Power of two, so the next query is a mask away
+
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private AnagramDictionary dictionary;
+    private String[] queries;
+    private String[] bases;
+    private int next;
+    private final Random random = new Random(18);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> words = SyntheticWords.load(scale);
+        dictionary = new AnagramDictionary(new StringReader(SyntheticWords.asText(words)));
+        Random random = new Random(42);
+        queries = new String[QUERY_COUNT];
+        bases = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries[i] = words.get(random.nextInt(words.size()));
+            bases[i] = queries[i].substring(0, Math.min(3, queries[i].length()));
+        }
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return next;
+    }
+
+    @Benchmark
+    public boolean isGoodWord() {
+        int i = nextQuery();
+        return dictionary.isGoodWord(queries[i], bases[i]);
+    }
+
+    @Benchmark
+    public List<String> getAnagrams() {
+        return dictionary.getAnagrams(queries[nextQuery()]);
+    }
+
+    @Benchmark
+    public List<String> getAnagramsWithOneMoreLetter() {
+        return dictionary.getAnagramsWithOneMoreLetter(queries[nextQuery()]);
+    }
+
+    @Benchmark
+    public int countAnagramsWithOneMoreLetter() {
+        return dictionary.countAnagramsWithOneMoreLetter(queries[nextQuery()]);
+    }
+
+    @Benchmark
+    public String firstAnagramWithOneMoreLetter() {
+        Iterator<String> it = dictionary.iterateAnagramsWithOneMoreLetter(queries[nextQuery()]).iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Benchmark
+    public List<String> getAnagramsWithTwoMoreLetters() {
+        return dictionary.getAnagramsWithMoreLetters(queries[nextQuery()], 2);
+    }
+
+    @Benchmark
+    public List<String> getAnagramsWithThreeMoreLetters() {
+        return dictionary.getAnagramsWithMoreLetters(queries[nextQuery()], 3);
+    }
+
+    @Benchmark
+    public void getWordsFromLetters(Blackhole blackhole) {
+        for (String word : dictionary.getWordsFromLetters(queries[nextQuery()])) {
+            blackhole.consume(word);
+        }
+    }
+
+    @Benchmark
+    public String pickGoodStarterWord() throws NoStarterWordException {
+        return dictionary.pickGoodStarterWord();
+    }
+
+    @Benchmark
+    public String pickStarterWordInDifficultyBand() throws NoStarterWordException {
+        // A narrow band in the middle of the range, which costs the same as any other
+        return dictionary.pickStarterWord(5, 1.0f, 1.5f, random);
+    }
+}
@@ -0,0 +1,86 @@
+package com.google.engedu.anagrams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validating one batch of submissions against a base word: a loop of isGoodWord calls against
+ * areGoodWords, single-threaded and on every available core.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchValidationBenchmark {
+
+    @Param({"64", "4096", "65536"})
+    public int batchSize;
+
+    private AnagramDictionary dictionary;
+    private List<String> batch;
+    private String base;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        List<String> words = SyntheticWords.load(10);
+        dictionary = new AnagramDictionary(new StringReader(SyntheticWords.asText(words)));
+        base = "post";
+        // Roughly what players send: mostly real words, some typos, some extensions of the base
+        Random random = new Random(42);
+        batch = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String word = words.get(random.nextInt(words.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    batch.add(new StringBuilder(word).reverse().toString());
+                    break;
+                case 1:
+                    batch.add(base + word.charAt(0));
+                    break;
+                default:
+                    batch.add(word);
+            }
+        }
+    }
+
+    @Benchmark
+    public BitSet perCallIsGoodWord() {
+        BitSet good = new BitSet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (dictionary.isGoodWord(batch.get(i), base)) {
+                good.set(i);
+            }
+        }
+        return good;
+    }
+
+    @Benchmark
+    public BitSet areGoodWords() {
+        return dictionary.areGoodWords(batch, base);
+    }
+
+    @Benchmark
+    public BitSet areGoodWordsParallel() {
+        return dictionary.areGoodWords(batch, base, threads);
+    }
+}
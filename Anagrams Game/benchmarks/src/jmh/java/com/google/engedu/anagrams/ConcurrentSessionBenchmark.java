@@ -0,0 +1,61 @@
+package com.google.engedu.anagrams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many games played at once against one shared dictionary, each benchmark thread through its
+ * own GameSession. Per-thread throughput should hold steady as threads are added (-t on the
+ * command line); a drop would point at contention in the shared lookup paths.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class ConcurrentSessionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class SharedDictionary {
+        AnagramDictionary dictionary;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception {
+            List<String> words = SyntheticWords.load(1);
+            dictionary = new AnagramDictionary(new StringReader(SyntheticWords.asText(words)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Game {
+        GameSession session;
+
+        @Setup(Level.Iteration)
+        public void setUp(SharedDictionary shared) {
+            session = new GameSession(shared.dictionary, new Random(Thread.currentThread().getId()));
+        }
+    }
+
+    @Benchmark
+    public List<String> playRound(SharedDictionary shared, Game game) throws NoStarterWordException {
+        // Sessions cap at the longest length, so after a few rounds this keeps picking 7-letter words
+        String starter = game.session.pickGoodStarterWord();
+        return shared.dictionary.getAnagramsWithOneMoreLetter(starter);
+    }
+}
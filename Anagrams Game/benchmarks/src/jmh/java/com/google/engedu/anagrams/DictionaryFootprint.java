@@ -0,0 +1,57 @@
+package com.google.engedu.anagrams;
+
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Prints the retained heap of the dictionary against the collection-based layout it replaced,
+ * over words.txt and a synthetic dictionary 10 times its size. Sizes are walked from the
+ * object graph by JOL, so they don't depend on when the collector runs.
+ */
+public final class DictionaryFootprint {
+
+    private DictionaryFootprint() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        for (int scale : new int[] {1, 10}) {
+            List<String> words = SyntheticWords.load(scale);
+            long legacyBytes = GraphLayout.parseInstance(buildLegacyLayout(words)).totalSize();
+            AnagramDictionary dictionary = new AnagramDictionary(new StringReader(SyntheticWords.asText(words)));
+            long compactBytes = GraphLayout.parseInstance(dictionary).totalSize();
+            System.out.println(String.format("scale %d, %,d words: collections %,d bytes, dictionary %,d bytes (%.1fx smaller)",
+                    scale, words.size(), legacyBytes, compactBytes, (double) legacyBytes / compactBytes));
+        }
+    }
+
+    // The four collections AnagramDictionary used to keep
+    private static Object[] buildLegacyLayout(List<String> words) {
+        ArrayList<String> wordList = new ArrayList<>();
+        HashSet<String> wordSet = new HashSet<>();
+        HashMap<String, ArrayList<String>> lettersToWords = new HashMap<>();
+        HashMap<Integer, ArrayList<String>> sizeToWords = new HashMap<>();
+        for (String word : words) {
+            wordList.add(word);
+            wordSet.add(word);
+            char[] arr = word.toCharArray();
+            Arrays.sort(arr);
+            String sortedWord = new String(arr);
+            if (!lettersToWords.containsKey(sortedWord)) {
+                lettersToWords.put(sortedWord, new ArrayList<String>());
+            }
+            lettersToWords.get(sortedWord).add(word);
+            if (!sizeToWords.containsKey(word.length())) {
+                sizeToWords.put(word.length(), new ArrayList<String>());
+            }
+            sizeToWords.get(word.length()).add(word);
+        }
+        return new Object[] {wordList, wordSet, lettersToWords, sizeToWords};
+    }
+}
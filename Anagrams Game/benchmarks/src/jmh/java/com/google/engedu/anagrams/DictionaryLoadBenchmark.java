@@ -0,0 +1,79 @@
+package com.google.engedu.anagrams;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start cost of a dictionary: parsing text, building the indexes on 1 to N threads,
+ * and mapping a compiled image.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DictionaryLoadBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int scale;
+
+    private List<String> words;
+    private String text;
+    private File image;
+    private long checksum;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        words = SyntheticWords.load(scale);
+        text = SyntheticWords.asText(words);
+        checksum = DictionaryImage.checksum(new FileInputStream(SyntheticWords.wordsFile()));
+        image = File.createTempFile("words", ".idx");
+        new AnagramDictionary(new StringReader(text)).writeImage(image, checksum);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        image.delete();
+    }
+
+    // Only the build benchmarks vary the thread count
+    @State(Scope.Benchmark)
+    public static class Threads {
+        @Param({"1", "2", "4", "8"})
+        public int count;
+    }
+
+    @Benchmark
+    public AnagramDictionary parseText(Threads threads) throws IOException {
+        return new AnagramDictionary(new StringReader(text), threads.count);
+    }
+
+    @Benchmark
+    public WordIndex buildIndex(Threads threads) {
+        return new WordIndex(words, threads.count);
+    }
+
+    @Benchmark
+    public AnagramDictionary mapImage() throws IOException {
+        return AnagramDictionary.fromImage(image, checksum);
+    }
+}
@@ -0,0 +1,45 @@
+package com.google.engedu.anagrams;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bundled words.txt, optionally scaled up into a larger synthetic dictionary.
+ */
+final class SyntheticWords {
+
+    private SyntheticWords() {
+    }
+
+    static String wordsFile() {
+        return System.getProperty("words.file", "../app/src/main/assets/words.txt");
+    }
+
+    // words.txt repeated scale times, each copy's words extended by a distinct letter suffix
+    static List<String> load(int scale) throws IOException {
+        List<String> base = AnagramDictionary.readWords(new InputStreamReader(new FileInputStream(wordsFile()), "UTF-8"));
+        ArrayList<String> result = new ArrayList<>(base.size() * scale);
+        for (int copy = 0; copy < scale; copy++) {
+            StringBuilder suffix = new StringBuilder();
+            for (int n = copy; n > 0; n /= 26) {
+                suffix.append((char) ('a' + n % 26));
+            }
+            for (String word : base) {
+                result.add(word + suffix);
+            }
+        }
+        return result;
+    }
+
+    // The same words as a newline-separated text, as AnagramDictionary(Reader) expects
+    static String asText(List<String> words) {
+        StringBuilder text = new StringBuilder();
+        for (String word : words) {
+            text.append(word).append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,207 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.dictionary;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of parsed dictionaries, shared by the game activities.
+ *
+ * Each activity acquires its dictionary in onCreate and releases it in onDestroy. While any
+ * handle is held the dictionary is strongly reachable. Once the last one is released it is only
+ * softly held, so an activity recreated after a configuration change finds it again instead of
+ * re-parsing words.txt. At most MAX_RELEASED released dictionaries are kept, least recently used
+ * first out, and the garbage collector may drop them earlier under memory pressure.
+ */
+public final class DictionaryCache {
+
+    public interface Loader<T> {
+        T load() throws IOException;
+    }
+
+    private static final int MAX_RELEASED = 2;
+    private static final DictionaryCache INSTANCE = new DictionaryCache(MAX_RELEASED);
+
+    private final int maxReleased;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);  // In access order
+    private long hits;
+    private long misses;
+    private long loadTimeNanos;
+
+    public static DictionaryCache getInstance() {
+        return INSTANCE;
+    }
+
+    public DictionaryCache(int maxReleased) {
+        this.maxReleased = maxReleased;
+    }
+
+    // Returns the cached dictionary for key, loading it on this thread if it isn't cached.
+    // Concurrent acquires of the same key share one load.
+    public <T> Handle<T> acquire(String key, Loader<T> loader) throws IOException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry();
+                entries.put(key, entry);
+            }
+            entry.references++;
+        }
+
+        boolean loaded = false;
+        try {
+            synchronized (entry) {
+                Object value;
+                synchronized (this) {
+                    value = entry.value();
+                    if (value != null) {
+                        hits++;
+                    }
+                }
+                if (value == null) {
+                    long start = System.nanoTime();
+                    value = loader.load();
+                    synchronized (this) {
+                        misses++;
+                        loadTimeNanos += System.nanoTime() - start;
+                        entry.strong = value;
+                        entry.soft = null;
+                    }
+                }
+                loaded = true;
+                @SuppressWarnings("unchecked")
+                T dictionary = (T) value;
+                return new Handle<>(this, key, entry, dictionary);
+            }
+        } finally {
+            if (!loaded) {
+                release(key, entry);
+            }
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getLoadTimeNanos() {
+        return loadTimeNanos;
+    }
+
+    public synchronized String getStats() {
+        return String.format("dictionary cache: %d hits, %d misses, %d ms loading",
+                hits, misses, loadTimeNanos / 1000000);
+    }
+
+    // Entries still tracked, held or released
+    synchronized int size() {
+        return entries.size();
+    }
+
+    // Clears the soft reference of every released entry, as the collector may under memory pressure
+    synchronized void clearSoftReferences() {
+        for (Entry entry : entries.values()) {
+            if (entry.soft != null) {
+                entry.soft.clear();
+            }
+        }
+    }
+
+    private synchronized void release(String key, Entry entry) {
+        entry.references--;
+        if (entry.references > 0) {
+            return;
+        }
+        if (entry.strong != null) {
+            entry.soft = new SoftReference<>(entry.strong);
+            entry.strong = null;
+        }
+        if (entries.get(key) != entry) {
+            return;
+        }
+
+        // Drop released entries beyond the limit, oldest first, and any the collector cleared
+        int released = 0;
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            if (e.getValue().references == 0) {
+                released++;
+            }
+        }
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry candidate = it.next();
+            if (candidate.references > 0) {
+                continue;
+            }
+            if (released > maxReleased || candidate.value() == null) {
+                it.remove();
+                released--;
+            }
+        }
+    }
+
+    private static class Entry {
+        int references;  // Guarded by the cache
+        Object strong;  // Set while references > 0
+        SoftReference<Object> soft;  // Set once released
+
+        Object value() {
+            if (strong != null) {
+                return strong;
+            }
+            return soft == null ? null : soft.get();
+        }
+    }
+
+    // A reference to a cached dictionary; release it when the owner is destroyed
+    public static final class Handle<T> {
+        private final DictionaryCache cache;
+        private final String key;
+        private final Entry entry;
+        private T dictionary;
+
+        private Handle(DictionaryCache cache, String key, Entry entry, T dictionary) {
+            this.cache = cache;
+            this.key = key;
+            this.entry = entry;
+            this.dictionary = dictionary;
+        }
+
+        public synchronized T get() {
+            if (dictionary == null) {
+                throw new IllegalStateException("Dictionary handle already released");
+            }
+            return dictionary;
+        }
+
+        // Safe to call more than once
+        public synchronized void release() {
+            if (dictionary != null) {
+                dictionary = null;
+                cache.release(key, entry);
+            }
+        }
+    }
+}
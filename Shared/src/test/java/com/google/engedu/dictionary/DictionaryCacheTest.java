@@ -0,0 +1,150 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.dictionary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the cache's reference counting, soft retention and eviction.
+ */
+public class DictionaryCacheTest {
+
+    // Returns a fresh object per load and counts the loads
+    private static class CountingLoader implements DictionaryCache.Loader<Object> {
+        int loads;
+
+        @Override
+        public Object load() {
+            loads++;
+            return new Object();
+        }
+    }
+
+    @Test
+    public void acquire_hitAfterReleaseAndReacquire() throws IOException {
+        DictionaryCache cache = new DictionaryCache(2);
+        CountingLoader loader = new CountingLoader();
+        DictionaryCache.Handle<Object> first = cache.acquire("words", loader);
+        Object dictionary = first.get();
+        first.release();
+        first.release();  // A second release is a no-op
+
+        DictionaryCache.Handle<Object> second = cache.acquire("words", loader);
+        assertSame(dictionary, second.get());
+        assertEquals(1, loader.loads);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        second.release();
+    }
+
+    @Test
+    public void acquire_heldHandlesShareOneLoad() throws IOException {
+        DictionaryCache cache = new DictionaryCache(0);
+        CountingLoader loader = new CountingLoader();
+        DictionaryCache.Handle<Object> first = cache.acquire("words", loader);
+        DictionaryCache.Handle<Object> second = cache.acquire("words", loader);
+        assertSame(first.get(), second.get());
+        // Still held by the second handle, so even a cache keeping nothing released keeps it
+        first.release();
+        cache.clearSoftReferences();
+        DictionaryCache.Handle<Object> third = cache.acquire("words", loader);
+        assertSame(second.get(), third.get());
+        assertEquals(1, loader.loads);
+        second.release();
+        third.release();
+    }
+
+    @Test
+    public void acquire_reloadsAfterSoftReferenceCleared() throws IOException {
+        DictionaryCache cache = new DictionaryCache(2);
+        CountingLoader loader = new CountingLoader();
+        DictionaryCache.Handle<Object> first = cache.acquire("words", loader);
+        Object dictionary = first.get();
+        first.release();
+        cache.clearSoftReferences();
+
+        DictionaryCache.Handle<Object> second = cache.acquire("words", loader);
+        assertNotSame(dictionary, second.get());
+        assertEquals(2, loader.loads);
+        assertEquals(2, cache.getMisses());
+        assertEquals(0, cache.getHits());
+        second.release();
+    }
+
+    @Test
+    public void acquire_failedLoadLeavesNoEntry() throws IOException {
+        DictionaryCache cache = new DictionaryCache(2);
+        try {
+            cache.acquire("words", new DictionaryCache.Loader<Object>() {
+                @Override
+                public Object load() throws IOException {
+                    throw new IOException("missing words.txt");
+                }
+            });
+            fail("Expected the loader's exception");
+        } catch (IOException e) {
+            assertEquals("missing words.txt", e.getMessage());
+        }
+        assertEquals(0, cache.size());
+
+        CountingLoader loader = new CountingLoader();
+        DictionaryCache.Handle<Object> handle = cache.acquire("words", loader);
+        assertNotNull(handle.get());
+        assertEquals(1, loader.loads);
+        assertEquals(0, cache.getHits());
+        handle.release();
+    }
+
+    @Test
+    public void release_evictsLeastRecentlyUsedBeyondLimit() throws IOException {
+        DictionaryCache cache = new DictionaryCache(2);
+        CountingLoader loader = new CountingLoader();
+        for (String key : new String[] {"a", "b", "c"}) {
+            cache.acquire(key, loader).release();
+        }
+        // Releasing "c" left three released entries, so the oldest, "a", went
+        assertEquals(2, cache.size());
+        assertEquals(3, loader.loads);
+
+        DictionaryCache.Handle<Object> b = cache.acquire("b", loader);
+        DictionaryCache.Handle<Object> c = cache.acquire("c", loader);
+        assertEquals(3, loader.loads);
+        DictionaryCache.Handle<Object> a = cache.acquire("a", loader);
+        assertEquals(4, loader.loads);
+        assertEquals(2, cache.getHits());
+
+        // Held entries don't count towards the limit
+        assertEquals(3, cache.size());
+        a.release();
+        b.release();
+        c.release();
+        // "a" was used least recently of the three
+        assertEquals(2, cache.size());
+        cache.acquire("a", loader).release();
+        assertEquals(5, loader.loads);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void get_afterRelease() throws IOException {
+        DictionaryCache.Handle<Object> handle = new DictionaryCache(2).acquire("words", new CountingLoader());
+        handle.release();
+        handle.get();
+    }
+}
@@ -58,6 +58,10 @@ public class LetterTile extends android.support.v7.widget.AppCompatTextView {
         }
     }
 
+    public char getLetter() {
+        return letter;
+    }
+
     public void freeze() {
         frozen = true;
     }
@@ -19,64 +19,159 @@ import android.content.res.AssetManager;
 import android.graphics.Color;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.text.TextUtils;
+import android.util.Log;
 import android.view.DragEvent;
+import android.view.LayoutInflater;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.MotionEvent;
+import android.view.SubMenu;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
-import java.io.BufferedReader;
+import com.google.engedu.dictionary.DictionaryCache;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.Stack;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 public class MainActivity extends AppCompatActivity {
 
-    private static final int WORD_LENGTH = 5;
+    private static final int DEFAULT_WORD_LENGTH = 5;
+    private static final int MIN_WORD_LENGTH = 3;
+    private static final int MAX_WORD_LENGTH = 7;
+    private static final int DEFAULT_WORD_COUNT = 2;
+    private static final int MIN_WORD_COUNT = 2;
+    private static final int MAX_WORD_COUNT = 4;
+    private static final int LENGTH_GROUP = 1;  // Options menu groups; each item's id is its value
+    private static final int COUNT_GROUP = 2;
     public static final int LIGHT_BLUE = Color.rgb(176, 200, 255);
     public static final int LIGHT_GREEN = Color.rgb(200, 255, 200);
-    private ArrayList<String> words = new ArrayList<>();
-    private ArrayList<String> fullDictionary = new ArrayList<>();
+    public static final int LIGHT_RED = Color.rgb(255, 200, 200);
+    private static final String TAG = "WordStack";
+    private static final String DICTIONARY_KEY = "wordstack/words.txt";
+    private static final Executor SOLVER = Executors.newSingleThreadExecutor();
+    private DictionaryCache.Handle<WordStackDictionary> dictionaryHandle;
+    private int wordLength = DEFAULT_WORD_LENGTH;  // Changes take effect at the next round
+    private int wordCount = DEFAULT_WORD_COUNT;
+    private List<String> words = new ArrayList<>();  // Words of wordLength, to pick rounds from
+    private WordStackDictionary dictionary;  // Null if words.txt couldn't be loaded
     private Random random = new Random();
+    private final TileShuffler shuffler = new TileShuffler();  // Reuses its tile buffer across rounds
     private StackedLayout stackedLayout;
-    private String word1, word2;
+    private final ArrayList<String> roundWords = new ArrayList<>();  // The words this round's tiles were dealt from
     private Stack<LetterTile> placedTiles = new Stack<>();
+    private final ArrayList<ViewGroup> rows = new ArrayList<>();  // One target row per word
+    private final ArrayList<PrefixCursor> cursors = new ArrayList<>();  // How far each row has got into the trie; empty without a dictionary
+    private FutureTask<List<SplitSolver.Split>> roundSolve;  // Solving the current round's tiles
+    private List<SplitSolver.Split> splits;  // Every set of words the current tiles make; null until roundSolve completes
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
-        AssetManager assetManager = getAssets();
+        final AssetManager assetManager = getAssets();
         try {
-            InputStream inputStream = assetManager.open("words.txt");
-            BufferedReader in = new BufferedReader(new InputStreamReader(inputStream));
-            String line;
-            while((line = in.readLine()) != null) {
-                String word = line.trim();
-                fullDictionary.add(word);
-                if (word.length() == WORD_LENGTH) {
-                    words.add(word);
+            // Shared with earlier instances of this activity, e.g. before a rotation
+            dictionaryHandle = DictionaryCache.getInstance().acquire(DICTIONARY_KEY, new DictionaryCache.Loader<WordStackDictionary>() {
+                @Override
+                public WordStackDictionary load() throws IOException {
+                    InputStream inputStream = assetManager.open("words.txt");
+                    return new WordStackDictionary(new InputStreamReader(inputStream));
                 }
-            }
+            });
+            dictionary = dictionaryHandle.get();
+            words = dictionary.getWordsOfLength(wordLength);
+            Log.d(TAG, DictionaryCache.getInstance().getStats());
         } catch (IOException e) {
             Toast toast = Toast.makeText(this, "Could not load dictionary", Toast.LENGTH_LONG);
             toast.show();
         }
         LinearLayout verticalLayout = findViewById(R.id.vertical_layout);
         stackedLayout = new StackedLayout(this);
-        verticalLayout.addView(stackedLayout, 3);
+        verticalLayout.addView(stackedLayout);
+        setRowCount(wordCount);
+    }
+
+    // Adds or removes target rows, and their trie cursors, until there are count of them
+    private void setRowCount(int count) {
+        LinearLayout rowsLayout = findViewById(R.id.rows);
+        LayoutInflater inflater = getLayoutInflater();
+        while (rows.size() < count) {
+            ViewGroup row = (ViewGroup) inflater.inflate(R.layout.word_row, rowsLayout, false);
+            //row.setOnTouchListener(new TouchListener());
+            row.setOnDragListener(new DragListener());
+            rowsLayout.addView(row);
+            rows.add(row);
+            if (dictionary != null) {
+                cursors.add(new PrefixCursor(dictionary.getTrie()));
+            }
+        }
+        while (rows.size() > count) {
+            rowsLayout.removeView(rows.remove(rows.size() - 1));
+            if (!cursors.isEmpty()) {
+                cursors.remove(cursors.size() - 1);
+            }
+        }
+    }
 
-        View word1LinearLayout = findViewById(R.id.word1);
-        //word1LinearLayout.setOnTouchListener(new TouchListener());
-        word1LinearLayout.setOnDragListener(new DragListener());
-        View word2LinearLayout = findViewById(R.id.word2);
-        //word2LinearLayout.setOnTouchListener(new TouchListener());
-        word2LinearLayout.setOnDragListener(new DragListener());
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        SubMenu lengths = menu.addSubMenu(R.string.word_length);
+        for (int length = MIN_WORD_LENGTH; length <= MAX_WORD_LENGTH; length++) {
+            lengths.add(LENGTH_GROUP, length, length, String.valueOf(length)).setChecked(length == wordLength);
+        }
+        lengths.setGroupCheckable(LENGTH_GROUP, true, true);
+        SubMenu counts = menu.addSubMenu(R.string.word_count);
+        for (int count = MIN_WORD_COUNT; count <= MAX_WORD_COUNT; count++) {
+            counts.add(COUNT_GROUP, count, count, String.valueOf(count)).setChecked(count == wordCount);
+        }
+        counts.setGroupCheckable(COUNT_GROUP, true, true);
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if (item.getGroupId() == LENGTH_GROUP) {
+            wordLength = item.getItemId();
+            if (dictionary != null) {
+                // Already bucketed when the dictionary was loaded
+                words = dictionary.getWordsOfLength(wordLength);
+            }
+            item.setChecked(true);
+            return true;
+        }
+        if (item.getGroupId() == COUNT_GROUP) {
+            wordCount = item.getItemId();
+            item.setChecked(true);
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (roundSolve != null) {
+            roundSolve.cancel(true);
+        }
+        if (dictionaryHandle != null) {
+            dictionaryHandle.release();
+        }
+        super.onDestroy();
     }
 
     private class TouchListener implements View.OnTouchListener {
@@ -86,9 +181,9 @@ public class MainActivity extends AppCompatActivity {
             if (event.getAction() == MotionEvent.ACTION_DOWN && !stackedLayout.empty()) {
                 LetterTile tile = (LetterTile) stackedLayout.peek();
                 tile.moveToViewGroup((ViewGroup) v);
+                onTilePlaced(tile, v);
                 if (stackedLayout.empty()) {
-                    TextView messageBox = findViewById(R.id.message_box);
-                    messageBox.setText(String.format(getString(R.string.display_originals), word1, word2));
+                    showOriginals();
                 }
                 placedTiles.push(tile);
                 return true;
@@ -115,16 +210,16 @@ public class MainActivity extends AppCompatActivity {
                     v.invalidate();
                     return true;
                 case DragEvent.ACTION_DRAG_ENDED:
-                    v.setBackgroundColor(Color.WHITE);
+                    v.setBackgroundColor(restingColor(v));
                     v.invalidate();
                     return true;
                 case DragEvent.ACTION_DROP:
                     // Dropped, reassign Tile to the target Layout
                     LetterTile tile = (LetterTile) event.getLocalState();
                     tile.moveToViewGroup((ViewGroup) v);
+                    onTilePlaced(tile, v);
                     if (stackedLayout.empty()) {
-                        TextView messageBox = findViewById(R.id.message_box);
-                        messageBox.setText(String.format(getString(R.string.display_originals), word1, word2));
+                        showOriginals();
                         checkAnswer();
                     }
                     placedTiles.push(tile);
@@ -135,22 +230,44 @@ public class MainActivity extends AppCompatActivity {
     }
 
     public boolean onStartGame(View view) {
-        // Clear the previous game (if any)
-        LinearLayout word1LinearLayout = findViewById(R.id.word1);
-        word1LinearLayout.removeAllViews();
-        LinearLayout word2LinearLayout = findViewById(R.id.word2);
-        word2LinearLayout.removeAllViews();
+        if (dictionary == null) {
+            return true;
+        }
+        if (words.size() < wordCount) {
+            Toast toast = Toast.makeText(this, String.format(getString(R.string.too_few_words), wordCount, wordLength),
+                    Toast.LENGTH_LONG);
+            toast.show();
+            return true;
+        }
+        // Clear the previous game (if any), and match the rows to this round's word count
+        setRowCount(wordCount);
+        for (PrefixCursor cursor : cursors) {
+            cursor.clear();
+        }
+        for (ViewGroup row : rows) {
+            row.removeAllViews();
+            row.setBackgroundColor(restingColor(row));
+        }
         stackedLayout.clear();
         placedTiles.clear();
-        
+        if (roundSolve != null) {
+            // Interrupting the solver stops it, so the next round's solve doesn't queue behind it
+            roundSolve.cancel(true);
+        }
+        splits = null;
 
         TextView messageBox = findViewById(R.id.message_box);
         messageBox.setText(R.string.game_start);
 
-        // Pick two random words
+        // Pick distinct random words; the bucket holds each word once and at least wordCount of them
         Random random = new Random();
-        word1 = words.get(random.nextInt(words.size() - 1));
-        word2 = words.get(random.nextInt(words.size() - 1));
+        roundWords.clear();
+        while (roundWords.size() < wordCount) {
+            String word = words.get(random.nextInt(words.size()));
+            if (!roundWords.contains(word)) {
+                roundWords.add(word);
+            }
+        }
 
         shuffleAndReverse();
 
@@ -160,71 +277,118 @@ public class MainActivity extends AppCompatActivity {
     public boolean onUndo(View view) {
         if (!placedTiles.empty() && !stackedLayout.empty()) {
             LetterTile tile = placedTiles.pop();
+            View row = (View) tile.getParent();
             tile.moveToViewGroup(stackedLayout);
+            PrefixCursor cursor = cursorFor(row);
+            if (cursor != null) {
+                cursor.pop();
+                row.setBackgroundColor(restingColor(row));
+            }
             return true;
         }
         else
             return false;
     }
 
-    // Shuffles together the two strings, preserving their orders relative to their words
-    // Returns the shuffled string in reverse order for pushing onto a stack
-    // Called recursively until a sufficiently shuffled string is returned
-    private void shuffleAndReverse() {
-        // shuffle words into a single mixed string, with word orders preserved
-        StringBuilder shuffled = new StringBuilder();
-        int count1 = 0, count2 = 0;
-        while (count1 != WORD_LENGTH && count2 != WORD_LENGTH) {
-            shuffled.append(random.nextBoolean() ? word1.charAt(count1++) : word2.charAt(count2++));
-        }
-        while (count1 != WORD_LENGTH) {
-            shuffled.append(word1.charAt(count1++));
-        }
-        while (count2 != WORD_LENGTH) {
-            shuffled.append(word2.charAt(count2++));
+    private PrefixCursor cursorFor(View row) {
+        int index = rows.indexOf(row);
+        return index >= 0 && index < cursors.size() ? cursors.get(index) : null;
+    }
+
+    // Advances the row's cursor over a tile just added to its end, flagging the row as soon as no
+    // word starts with it
+    private void onTilePlaced(LetterTile tile, View row) {
+        PrefixCursor cursor = cursorFor(row);
+        if (cursor != null) {
+            cursor.push(tile.getLetter());
+            row.setBackgroundColor(restingColor(row));
         }
+    }
 
-        // Check if shuffled
-        if (shuffled.indexOf(word1) != -1 || shuffled.indexOf(word2) != -1) {
-            shuffleAndReverse();
+    // A row's background outside of a drag: red once its letters can't begin any word
+    private int restingColor(View row) {
+        PrefixCursor cursor = cursorFor(row);
+        return cursor == null || cursor.isPrefix() ? Color.WHITE : LIGHT_RED;
+    }
+
+    private void showOriginals() {
+        TextView messageBox = findViewById(R.id.message_box);
+        messageBox.setText(String.format(getString(R.string.display_originals), TextUtils.join(" ", roundWords)));
+    }
+
+    // Shuffles together the round's words, preserving each word's letter order, so that no word
+    // shows in the tiles, and pushes the tiles onto stackedLayout in reverse for dealing in order
+    private void shuffleAndReverse() {
+        char[] tiles = shuffler.shuffle(roundWords, random);
+        solveRound(new String(tiles));
+        for (int i = tiles.length - 1; i >= 0; i--) {
+            LetterTile tile = new LetterTile(this, tiles[i]);
+            stackedLayout.push(tile);
         }
-        else {
-            // Push each letter onto stackedLayout as a LetterTile in reverse order
-            shuffled.reverse();
-            for (int i = 0; i < shuffled.length(); i++) {
-                LetterTile tile = new LetterTile(this, shuffled.charAt(i));
-                stackedLayout.push(tile);
+    }
+
+    // Finds every way to split the tiles, in the order they are dealt, into a word per row, off the UI thread
+    private void solveRound(final String tiles) {
+        final SplitSolver solver = new SplitSolver(dictionary.getTrie());
+        final int rowCount = rows.size();
+        roundSolve = new FutureTask<List<SplitSolver.Split>>(new Callable<List<SplitSolver.Split>>() {
+            @Override
+            public List<SplitSolver.Split> call() {
+                return solver.solve(tiles, rowCount);
             }
-        }
+        }) {
+            @Override
+            protected void done() {
+                final FutureTask<List<SplitSolver.Split>> task = this;
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        onRoundSolved(task);
+                    }
+                });
+            }
+        };
+        SOLVER.execute(roundSolve);
     }
 
+    // Called on the UI thread once a round's solve has finished or been cancelled
+    private void onRoundSolved(FutureTask<List<SplitSolver.Split>> task) {
+        if (task != roundSolve || isDestroyed()) {
+            return;  // A later round has started
+        }
+        try {
+            splits = task.get();
+        } catch (InterruptedException | ExecutionException | CancellationException e) {
+            Log.e(TAG, "Could not solve round", e);
+            return;
+        }
+        if (!stackedLayout.empty()) {
+            TextView messageBox = findViewById(R.id.message_box);
+            messageBox.setText(getResources().getQuantityString(R.plurals.round_splits, splits.size(), splits.size()));
+        }
+    }
 
     // tells the user if they found good words
     private void checkAnswer() {
         // Build answer strings from the viewgroups
-        StringBuilder build1 = new StringBuilder();
-        StringBuilder build2 = new StringBuilder();
-        String answer1, answer2, toastText;
-
-        ViewGroup v1 = findViewById(R.id.word1);
-        ViewGroup v2 = findViewById(R.id.word2);
-
-        for (int i = 0; i < v1.getChildCount(); i++) {
-            build1.append(((LetterTile) v1.getChildAt(i)).getText());
-        }
-        for (int i = 0; i < v2.getChildCount(); i++) {
-            build2.append(((LetterTile) v2.getChildAt(i)).getText());
+        String[] answers = new String[rows.size()];
+        String toastText;
+        for (int r = 0; r < rows.size(); r++) {
+            ViewGroup row = rows.get(r);
+            StringBuilder build = new StringBuilder();
+            for (int i = 0; i < row.getChildCount(); i++) {
+                build.append(((LetterTile) row.getChildAt(i)).getText());
+            }
+            answers[r] = build.toString();
         }
-
-        answer1 = build1.toString();
-        answer2 = build2.toString();
+        // Splits ignore row order
+        SplitSolver.Split answer = new SplitSolver.Split(answers);
 
         // Check if the answers are in dictionary
-        if ((answer1.compareTo(word1) == 0 || answer1.compareTo(word2) == 0)
-                && (answer2.compareTo(word1) == 0 || answer2.compareTo(word2) == 0)) {
+        if (answer.equals(new SplitSolver.Split(roundWords.toArray(new String[0])))) {
             toastText = "Perfect match!";
         }
-        else if (fullDictionary.contains(answer1) && fullDictionary.contains(answer2)) {
+        else if (splits != null ? splits.contains(answer) : allRowsAreWords()) {
             toastText = "Not the words we wanted, but the words we deserved.";
         }
         else {
@@ -234,4 +398,14 @@ public class MainActivity extends AppCompatActivity {
         Toast toast = Toast.makeText(this, toastText, Toast.LENGTH_LONG);
         toast.show();
     }
+
+    // Before the round is solved, the row cursors already know whether each row is a word
+    private boolean allRowsAreWords() {
+        for (PrefixCursor cursor : cursors) {
+            if (!cursor.isWord()) {
+                return false;
+            }
+        }
+        return !cursors.isEmpty();
+    }
 }
@@ -0,0 +1,103 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answer checking over words.txt: the trie against the linear ArrayList scan checkAnswer used to
+ * do. Half the queries are words of the round length and half are shuffles of them, which are
+ * mostly not words and so scan the whole list.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MembershipBenchmark {
+
+    private static final int QUERY_COUNT = 1024;  // Power of two, so the next query is a mask away
+    private static final int WORD_LENGTH = 5;
+
+    private WordStackDictionary dictionary;
+    private ArrayList<String> fullDictionary;
+    private String[] queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String wordsFile = System.getProperty("words.file", "../app/src/main/assets/words.txt");
+        dictionary = new WordStackDictionary(new InputStreamReader(new FileInputStream(wordsFile), "UTF-8"));
+        fullDictionary = new ArrayList<>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(wordsFile), "UTF-8"));
+        String line;
+        while ((line = in.readLine()) != null) {
+            fullDictionary.add(line.trim());
+        }
+        in.close();
+
+        List<String> words = dictionary.getWordsOfLength(WORD_LENGTH);
+        Random random = new Random(42);
+        queries = new String[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            char[] letters = words.get(random.nextInt(words.size())).toCharArray();
+            if (i % 2 == 1) {
+                for (int j = letters.length - 1; j > 0; j--) {
+                    int k = random.nextInt(j + 1);
+                    char swap = letters[j];
+                    letters[j] = letters[k];
+                    letters[k] = swap;
+                }
+            }
+            queries[i] = new String(letters);
+        }
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (QUERY_COUNT - 1);
+        return queries[next];
+    }
+
+    @Benchmark
+    public boolean trieContains() {
+        return dictionary.contains(nextQuery());
+    }
+
+    @Benchmark
+    public boolean listScan() {
+        return fullDictionary.contains(nextQuery());
+    }
+}
@@ -0,0 +1,83 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Solving a round over words.txt: every split of 2 to 4 interleaved five-letter words into as many words.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SplitSolverBenchmark {
+
+    private static final int ROUND_COUNT = 256;  // Power of two, so the next round is a mask away
+    private static final int WORD_LENGTH = 5;
+
+    @Param({"2", "3", "4"})
+    public int rows;
+
+    private SplitSolver solver;
+    private String[] rounds;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String wordsFile = System.getProperty("words.file", "../app/src/main/assets/words.txt");
+        WordStackDictionary dictionary = new WordStackDictionary(new InputStreamReader(new FileInputStream(wordsFile), "UTF-8"));
+        solver = new SplitSolver(dictionary.getTrie());
+        TileShuffler shuffler = new TileShuffler();
+        List<String> words = dictionary.getWordsOfLength(WORD_LENGTH);
+        Random random = new Random(42);
+        rounds = new String[ROUND_COUNT];
+        for (int r = 0; r < ROUND_COUNT; r++) {
+            ArrayList<String> round = new ArrayList<>();
+            for (int w = 0; w < rows; w++) {
+                round.add(words.get(random.nextInt(words.size())));
+            }
+            rounds[r] = new String(shuffler.shuffle(round, random));
+        }
+    }
+
+    @Benchmark
+    public List<SplitSolver.Split> solve() {
+        next = (next + 1) & (ROUND_COUNT - 1);
+        return solver.solve(rounds[next], rows);
+    }
+}
@@ -0,0 +1,68 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import java.util.Arrays;
+
+/**
+ * Tracks where one row of tiles has reached in the trie as tiles are added to and taken off its
+ * end, so each change is a single trie step or a pop rather than a re-walk of the row's letters.
+ * The node after every tile is kept, so taking a tile off restores the node before it even when
+ * the row had already left the trie.
+ */
+public final class PrefixCursor {
+
+    private final WordTrie trie;
+    private int[] nodes = new int[8];  // nodes[i] is the node after the first i tiles
+    private int length;
+
+    public PrefixCursor(WordTrie trie) {
+        this.trie = trie;
+        nodes[0] = WordTrie.ROOT;
+    }
+
+    public void push(char letter) {
+        if (length + 1 == nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length * 2);
+        }
+        nodes[length + 1] = trie.child(nodes[length], letter);
+        length++;
+    }
+
+    public void pop() {
+        if (length == 0) {
+            throw new IllegalStateException("No tiles to take off");
+        }
+        length--;
+    }
+
+    public void clear() {
+        length = 0;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    // Whether some word starts with the row so far
+    public boolean isPrefix() {
+        return nodes[length] != WordTrie.NONE;
+    }
+
+    public boolean isWord() {
+        return trie.isWord(nodes[length]);
+    }
+}
@@ -0,0 +1,212 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Finds every set of dictionary words a round's tiles can be dealt into, one word per row.
+ *
+ * Tiles are dealt in order and each goes to the end of one row, so a state is just the trie node
+ * each row has reached; the number of tiles dealt is the sum of their depths. Walking the rows
+ * down the trie together drops a branch as soon as any row stops being a prefix of some word,
+ * and memoizing how many completions each state has means a state reached along several paths,
+ * as repeated letters cause, is only explored once. Splits are then read off by following only
+ * the states that have completions, so the cost of listing them is proportional to the answer.
+ *
+ * Rows are interchangeable, so states are memoized with their nodes sorted, and a tile is only
+ * dealt to the first of several rows holding the same letters. Without that, k rows would explore
+ * up to k! copies of every state.
+ */
+public final class SplitSolver {
+
+    private final WordTrie trie;
+
+    public SplitSolver(WordTrie trie) {
+        this.trie = trie;
+    }
+
+    /** Words the tiles can be dealt into, one per row, in alphabetical order since rows can be swapped. */
+    public static final class Split {
+        private final String[] words;
+
+        public Split(String... words) {
+            this.words = words.clone();
+            Arrays.sort(this.words);
+        }
+
+        public List<String> getWords() {
+            return Collections.unmodifiableList(Arrays.asList(words));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Split && Arrays.equals(words, ((Split) o).words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(words);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            for (String word : words) {
+                if (text.length() > 0) {
+                    text.append(' ');
+                }
+                text.append(word);
+            }
+            return text.toString();
+        }
+    }
+
+    // Every distinct set of words the tiles can be dealt into; the same words reached by swapping
+    // equal letters between rows are listed once. Stops with a CancellationException as soon as the
+    // calling thread is interrupted, so a cancelled solve doesn't hold up the next one.
+    public List<Split> solve(CharSequence tiles, int rows) {
+        Search search = new Search(tiles, rows);
+        if (search.completions(0) == 0) {
+            return Collections.emptyList();
+        }
+        LinkedHashSet<Split> splits = new LinkedHashSet<>();
+        search.collect(0, splits);
+        return new ArrayList<>(splits);
+    }
+
+    private final class Search {
+        private final CharSequence tiles;
+        private final int[] nodes;  // Where each row is in the trie
+        private final char[][] letters;  // Each row's tiles so far
+        private final int[] lengths;
+        private final HashMap<State, Long> memo = new HashMap<>();  // Completions by the rows' sorted nodes
+
+        Search(CharSequence tiles, int rows) {
+            if (rows < 1) {
+                throw new IllegalArgumentException("Need at least one row: " + rows);
+            }
+            this.tiles = tiles;
+            nodes = new int[rows];
+            letters = new char[rows][tiles.length()];
+            lengths = new int[rows];
+        }
+
+        // Ways to deal the rest of the tiles from where the rows are now.
+        // Recursion is as deep as the tiles are long.
+        long completions(int dealt) {
+            if (dealt == tiles.length()) {
+                for (int node : nodes) {
+                    if (!trie.isWord(node)) {
+                        return 0;
+                    }
+                }
+                return 1;
+            }
+            State key = new State(nodes);
+            Long known = memo.get(key);
+            if (known != null) {
+                return known;
+            }
+            checkInterrupted();
+            char tile = tiles.charAt(dealt);
+            long ways = 0;
+            for (int row = 0; row < nodes.length; row++) {
+                int node = nodes[row];
+                int next = trie.child(node, tile);
+                if (next != WordTrie.NONE && !matchesEarlierRow(row)) {
+                    nodes[row] = next;
+                    ways += completions(dealt + 1);
+                    nodes[row] = node;
+                }
+            }
+            memo.put(key, ways);
+            return ways;
+        }
+
+        // Checked once per new state and per step of listing, both cheap next to the work between them
+        private void checkInterrupted() {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new CancellationException("Solve interrupted");
+            }
+        }
+
+        // Whether an earlier row holds the same letters, so dealing to this row repeats dealing to that one
+        private boolean matchesEarlierRow(int row) {
+            for (int earlier = 0; earlier < row; earlier++) {
+                if (nodes[earlier] == nodes[row]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void collect(int dealt, LinkedHashSet<Split> splits) {
+            checkInterrupted();
+            if (dealt == tiles.length()) {
+                String[] words = new String[nodes.length];
+                for (int row = 0; row < nodes.length; row++) {
+                    words[row] = new String(letters[row], 0, lengths[row]);
+                }
+                splits.add(new Split(words));
+                return;
+            }
+            char tile = tiles.charAt(dealt);
+            for (int row = 0; row < nodes.length; row++) {
+                int node = nodes[row];
+                int next = trie.child(node, tile);
+                if (next == WordTrie.NONE || matchesEarlierRow(row)) {
+                    continue;
+                }
+                nodes[row] = next;
+                if (completions(dealt + 1) > 0) {
+                    letters[row][lengths[row]++] = tile;
+                    collect(dealt + 1, splits);
+                    lengths[row]--;
+                }
+                nodes[row] = node;
+            }
+        }
+    }
+
+    // The rows' nodes in sorted order, as a memo key that ignores which row is which
+    private static final class State {
+        private final int[] nodes;
+        private final int hash;
+
+        State(int[] nodes) {
+            this.nodes = nodes.clone();
+            Arrays.sort(this.nodes);
+            this.hash = Arrays.hashCode(this.nodes);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof State && Arrays.equals(nodes, ((State) o).nodes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
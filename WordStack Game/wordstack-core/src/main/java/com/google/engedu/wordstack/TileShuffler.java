@@ -0,0 +1,180 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deals a round's words into one run of tiles, keeping each word's letters in order, so that no
+ * word can be read off the run as it stands.
+ *
+ * Every interleaving is a lattice path: a choice, for each tile, of the word it comes from. A path
+ * is drawn uniformly by taking each word's next letter with probability (its letters left) /
+ * (letters left), and redrawn if any word shows through. Rejection keeps the draw uniform over the
+ * valid paths. After MAX_ATTEMPTS draws, which only happens when most paths are invalid, a space
+ * of at most MAX_ENUMERATED paths is walked in lexicographic order and one valid path is chosen
+ * uniformly by reservoir sampling. A larger space, with 3 or more words, is never walked; if it
+ * has valid paths at all they are rare, and the last draw is dealt. Either way setting up a round
+ * has a fixed worst case.
+ *
+ * The tiles and path are written to buffers reused across rounds of the same size. Not thread-safe.
+ */
+public final class TileShuffler {
+
+    static final int MAX_ATTEMPTS = 16;
+    static final long MAX_ENUMERATED = 1 << 16;  // Two five-letter words have 252 paths, three have 756756
+
+    private final int maxAttempts;
+    private char[] tiles = new char[0];
+    private int[] path = new int[0];  // The word each tile comes from
+    private int[] chosen = new int[0];
+    private int[] left = new int[0];  // Letters of each word not yet dealt
+
+    public TileShuffler() {
+        this(MAX_ATTEMPTS);
+    }
+
+    TileShuffler(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    // The interleaved tiles, in the order they are dealt. The array is reused by the next call.
+    // If every interleaving shows one of the words, as with "aaaa" and "aaaa", returns one anyway.
+    public char[] shuffle(List<String> words, Random random) {
+        int length = 0;
+        for (String word : words) {
+            length += word.length();
+        }
+        if (tiles.length != length) {
+            tiles = new char[length];
+            path = new int[length];
+            chosen = new int[length];
+        }
+        if (left.length != words.size()) {
+            left = new int[words.size()];
+        }
+
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            for (int w = 0; w < words.size(); w++) {
+                left[w] = words.get(w).length();
+            }
+            for (int i = 0; i < length; i++) {
+                int pick = random.nextInt(length - i);
+                int w = 0;
+                while (pick >= left[w]) {
+                    pick -= left[w++];
+                }
+                path[i] = w;
+                left[w]--;
+            }
+            if (deal(path, words)) {
+                return tiles;
+            }
+        }
+        if (countPaths(words) > MAX_ENUMERATED) {
+            return tiles;
+        }
+
+        // Every path, starting from the smallest: the first word's tiles, then the second's, ...
+        int next = 0;
+        for (int w = 0; w < words.size(); w++) {
+            for (int i = 0; i < words.get(w).length(); i++) {
+                path[next++] = w;
+            }
+        }
+        System.arraycopy(path, 0, chosen, 0, length);
+        int valid = 0;
+        do {
+            if (deal(path, words) && random.nextInt(++valid) == 0) {
+                System.arraycopy(path, 0, chosen, 0, length);
+            }
+        } while (nextPath());
+        deal(chosen, words);
+        return tiles;
+    }
+
+    // Steps path to the next larger arrangement of the same multiset, or returns false at the last
+    private boolean nextPath() {
+        int i = path.length - 2;
+        while (i >= 0 && path[i] >= path[i + 1]) {
+            i--;
+        }
+        if (i < 0) {
+            return false;
+        }
+        int j = path.length - 1;
+        while (path[j] <= path[i]) {
+            j--;
+        }
+        int swap = path[i];
+        path[i] = path[j];
+        path[j] = swap;
+        for (int a = i + 1, b = path.length - 1; a < b; a++, b--) {
+            swap = path[a];
+            path[a] = path[b];
+            path[b] = swap;
+        }
+        return true;
+    }
+
+    // The multinomial coefficient of the word lengths, capped just past MAX_ENUMERATED
+    private static long countPaths(List<String> words) {
+        long paths = 1;
+        int dealt = 0;
+        for (String word : words) {
+            // Choose the positions of this word's letters among those dealt so far; each step is exact
+            for (int i = 1; i <= word.length(); i++) {
+                paths = paths * (dealt + i) / i;
+                if (paths > MAX_ENUMERATED) {
+                    return MAX_ENUMERATED + 1;
+                }
+            }
+            dealt += word.length();
+        }
+        return paths;
+    }
+
+    // Fills tiles along a path and reports whether no word shows through
+    private boolean deal(int[] path, List<String> words) {
+        for (int w = 0; w < words.size(); w++) {
+            left[w] = 0;
+        }
+        for (int i = 0; i < tiles.length; i++) {
+            int w = path[i];
+            tiles[i] = words.get(w).charAt(left[w]++);
+        }
+        for (String word : words) {
+            if (occursIn(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean occursIn(String word) {
+        for (int start = 0; start + word.length() <= tiles.length; start++) {
+            int i = 0;
+            while (i < word.length() && tiles[start + i] == word.charAt(i)) {
+                i++;
+            }
+            if (i == word.length()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
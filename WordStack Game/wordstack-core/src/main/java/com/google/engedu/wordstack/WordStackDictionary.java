@@ -0,0 +1,71 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * The parsed words.txt: a prefix trie over every word for membership checks, and the words
+ * bucketed by length, each once and in file order, to pick rounds from.
+ */
+public class WordStackDictionary {
+
+    private final WordTrie trie;
+    private final ArrayList<ArrayList<String>> wordsByLength = new ArrayList<>();
+
+    public WordStackDictionary(Reader reader) throws IOException {
+        BufferedReader in = new BufferedReader(reader);
+        ArrayList<String> all = new ArrayList<>();
+        HashSet<String> seen = new HashSet<>();
+        String line;
+        while((line = in.readLine()) != null) {
+            String word = line.trim();
+            if (!seen.add(word)) {
+                continue;
+            }
+            all.add(word);
+            // Bucket by length in the same pass
+            while (wordsByLength.size() <= word.length()) {
+                wordsByLength.add(new ArrayList<String>());
+            }
+            wordsByLength.get(word.length()).add(word);
+        }
+        trie = new WordTrie(all);
+    }
+
+    // O(word length), however large the dictionary
+    public boolean contains(CharSequence word) {
+        return trie.contains(word);
+    }
+
+    // Distinct words of the given length, to pick rounds from
+    public List<String> getWordsOfLength(int length) {
+        if (length < 0 || length >= wordsByLength.size()) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(wordsByLength.get(length));
+    }
+
+    public WordTrie getTrie() {
+        return trie;
+    }
+}
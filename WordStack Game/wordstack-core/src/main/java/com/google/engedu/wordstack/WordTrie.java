@@ -0,0 +1,141 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A prefix trie of the dictionary packed into arrays. Nodes are numbered breadth first, so the
+ * children of a node are a contiguous run of node ids, sorted by letter, and following an edge is
+ * a binary search over at most one run of letters. Each node costs a char, an int and a bit.
+ *
+ * A node id doubles as a cursor over a prefix: start at ROOT, follow one letter at a time with
+ * child, and NONE means no dictionary word starts with the letters so far.
+ */
+public final class WordTrie {
+
+    public static final int ROOT = 0;
+    public static final int NONE = -1;
+
+    private final char[] letters;  // The letter on the edge into each node
+    private final int[] childStarts;  // Node n's children are childStarts[n] up to childStarts[n + 1]
+    private final BitSet words = new BitSet();  // Nodes that end a word
+    private final int wordCount;
+
+    public WordTrie(List<String> unsorted) {
+        ArrayList<String> sorted = new ArrayList<>(unsorted);
+        Collections.sort(sorted);
+
+        // Breadth first over runs of the sorted list that share a prefix; a node's words are one run
+        int capacity = 1;
+        for (String word : sorted) {
+            capacity += word.length();
+        }
+        char[] letters = new char[capacity];
+        int[] childStarts = new int[capacity + 1];
+        int[] runStarts = new int[capacity];
+        int[] runEnds = new int[capacity];
+        int[] depths = new int[capacity];
+        runEnds[ROOT] = sorted.size();
+        int nodeCount = 1;
+        int distinct = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            int depth = depths[node];
+            int i = runStarts[node];
+            // Words that end here sort before every longer word with the same prefix
+            while (i < runEnds[node] && sorted.get(i).length() == depth) {
+                if (!words.get(node)) {
+                    words.set(node);
+                    distinct++;
+                }
+                i++;
+            }
+            childStarts[node] = nodeCount;
+            while (i < runEnds[node]) {
+                char letter = sorted.get(i).charAt(depth);
+                int child = nodeCount++;
+                letters[child] = letter;
+                runStarts[child] = i;
+                depths[child] = depth + 1;
+                while (i < runEnds[node] && sorted.get(i).charAt(depth) == letter) {
+                    i++;
+                }
+                runEnds[child] = i;
+            }
+        }
+        childStarts[nodeCount] = nodeCount;
+        this.letters = Arrays.copyOf(letters, nodeCount);
+        this.childStarts = Arrays.copyOf(childStarts, nodeCount + 1);
+        this.wordCount = distinct;
+    }
+
+    // The node reached from node over letter, or NONE
+    public int child(int node, char letter) {
+        if (node == NONE) {
+            return NONE;
+        }
+        int from = childStarts[node];
+        int to = childStarts[node + 1] - 1;
+        while (from <= to) {
+            int mid = (from + to) >>> 1;
+            if (letters[mid] < letter) {
+                from = mid + 1;
+            }
+            else if (letters[mid] > letter) {
+                to = mid - 1;
+            }
+            else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    // The node for a whole prefix, or NONE
+    public int find(CharSequence prefix) {
+        int node = ROOT;
+        for (int i = 0; i < prefix.length() && node != NONE; i++) {
+            node = child(node, prefix.charAt(i));
+        }
+        return node;
+    }
+
+    public boolean isWord(int node) {
+        return node != NONE && words.get(node);
+    }
+
+    // Whether any word continues past node
+    public boolean hasChildren(int node) {
+        return node != NONE && childStarts[node + 1] > childStarts[node];
+    }
+
+    public boolean contains(CharSequence word) {
+        return isWord(find(word));
+    }
+
+    // Distinct words
+    public int size() {
+        return wordCount;
+    }
+
+    public int nodeCount() {
+        return letters.length;
+    }
+}
@@ -0,0 +1,88 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks a row cursor against walking the trie from the root after every change.
+ */
+public class PrefixCursorTest {
+
+    private static WordStackDictionary dictionary;
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new WordStackDictionary(WordStackDictionaryTest.openWords());
+    }
+
+    @Test
+    public void pushAndPop_matchFindFromRoot() {
+        WordTrie trie = dictionary.getTrie();
+        PrefixCursor cursor = new PrefixCursor(trie);
+        List<String> words = dictionary.getWordsOfLength(5);
+        Random random = new Random(24);
+        StringBuilder row = new StringBuilder();
+        for (int step = 0; step < 20000; step++) {
+            // Mostly follow a real word so the row stays in the trie for a while
+            if (row.length() > 0 && random.nextInt(3) == 0) {
+                row.setLength(row.length() - 1);
+                cursor.pop();
+            }
+            else if (row.length() < 12) {
+                String word = words.get(random.nextInt(words.size()));
+                char letter = random.nextInt(4) == 0 ? (char) ('a' + random.nextInt(26)) : word.charAt(row.length() % 5);
+                row.append(letter);
+                cursor.push(letter);
+            }
+            int node = trie.find(row);
+            assertEquals(row.toString(), row.length(), cursor.length());
+            assertEquals(row.toString(), node != WordTrie.NONE, cursor.isPrefix());
+            assertEquals(row.toString(), trie.isWord(node), cursor.isWord());
+        }
+    }
+
+    @Test
+    public void pop_recoversFromDeadEnd() {
+        PrefixCursor cursor = new PrefixCursor(dictionary.getTrie());
+        for (char letter : "stac".toCharArray()) {
+            cursor.push(letter);
+        }
+        cursor.push('q');
+        cursor.push('q');
+        assertFalse(cursor.isPrefix());
+        cursor.pop();
+        cursor.pop();
+        cursor.push('k');
+        assertTrue(cursor.isWord());
+        cursor.clear();
+        assertEquals(0, cursor.length());
+        assertTrue(cursor.isPrefix());
+        assertFalse(cursor.isWord());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void pop_emptyRow() {
+        new PrefixCursor(dictionary.getTrie()).pop();
+    }
+}
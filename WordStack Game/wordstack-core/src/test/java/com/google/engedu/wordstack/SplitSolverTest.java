@@ -0,0 +1,138 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the split solver against trying every assignment of tiles to rows.
+ */
+public class SplitSolverTest {
+
+    private static WordStackDictionary dictionary;
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new WordStackDictionary(WordStackDictionaryTest.openWords());
+    }
+
+    @Test
+    public void solve_matchesBruteForce() {
+        SplitSolver solver = new SplitSolver(dictionary.getTrie());
+        List<String> words = dictionary.getWordsOfLength(5);
+        Random random = new Random(22);
+        for (int round = 0; round < 200; round++) {
+            String tiles = interleave(words.get(random.nextInt(words.size())), words.get(random.nextInt(words.size())), random);
+            LinkedHashSet<SplitSolver.Split> expected = new LinkedHashSet<>();
+            for (int mask = 0; mask < 1 << tiles.length(); mask++) {
+                StringBuilder first = new StringBuilder();
+                StringBuilder second = new StringBuilder();
+                for (int i = 0; i < tiles.length(); i++) {
+                    ((mask & (1 << i)) == 0 ? first : second).append(tiles.charAt(i));
+                }
+                if (dictionary.contains(first) && dictionary.contains(second)) {
+                    expected.add(new SplitSolver.Split(first.toString(), second.toString()));
+                }
+            }
+            // At least the words the tiles were dealt from
+            assertFalse(tiles, expected.isEmpty());
+            assertEquals(tiles, expected, new LinkedHashSet<>(solver.solve(tiles, 2)));
+            assertEquals(tiles, expected.size(), solver.solve(tiles, 2).size());
+        }
+    }
+
+    @Test
+    public void solve_threeRowsMatchesBruteForce() {
+        SplitSolver solver = new SplitSolver(dictionary.getTrie());
+        List<String> words = dictionary.getWordsOfLength(3);
+        Random random = new Random(25);
+        for (int round = 0; round < 20; round++) {
+            String tiles = interleave(interleave(words.get(random.nextInt(words.size())),
+                    words.get(random.nextInt(words.size())), random), words.get(random.nextInt(words.size())), random);
+            LinkedHashSet<SplitSolver.Split> expected = new LinkedHashSet<>();
+            // Each tile's row is one base-3 digit of assignment
+            int assignments = 1;
+            for (int i = 0; i < tiles.length(); i++) {
+                assignments *= 3;
+            }
+            for (int assignment = 0; assignment < assignments; assignment++) {
+                StringBuilder[] rows = {new StringBuilder(), new StringBuilder(), new StringBuilder()};
+                int digits = assignment;
+                for (int i = 0; i < tiles.length(); i++, digits /= 3) {
+                    rows[digits % 3].append(tiles.charAt(i));
+                }
+                if (dictionary.contains(rows[0]) && dictionary.contains(rows[1]) && dictionary.contains(rows[2])) {
+                    expected.add(new SplitSolver.Split(rows[0].toString(), rows[1].toString(), rows[2].toString()));
+                }
+            }
+            assertFalse(tiles, expected.isEmpty());
+            assertEquals(tiles, expected, new LinkedHashSet<>(solver.solve(tiles, 3)));
+            assertEquals(tiles, expected.size(), solver.solve(tiles, 3).size());
+        }
+    }
+
+    @Test
+    public void solve_listsEachSetOnce() throws IOException {
+        WordStackDictionary small = new WordStackDictionary(new StringReader("aa\nab\nba\n"));
+        SplitSolver solver = new SplitSolver(small.getTrie());
+        // The a's can be dealt six ways, and the rows swapped, all giving "aa" and "ab"
+        assertEquals(Arrays.asList(new SplitSolver.Split("aa", "ab")), solver.solve("aaab", 2));
+        assertEquals(new SplitSolver.Split("ab", "aa"), new SplitSolver.Split("aa", "ab"));
+        assertEquals(Arrays.asList(new SplitSolver.Split("aa", "aa", "ab")), solver.solve("aaaaab", 3));
+        assertTrue(solver.solve("zzzz", 2).isEmpty());
+    }
+
+    @Test
+    public void solve_stopsWhenInterrupted() {
+        SplitSolver solver = new SplitSolver(dictionary.getTrie());
+        Thread.currentThread().interrupt();
+        try {
+            solver.solve("stackwords", 2);
+            fail("Expected the solve to stop");
+        } catch (CancellationException expected) {
+            // The interrupt is left set for the caller
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+        assertFalse(solver.solve("stackwords", 2).isEmpty());
+    }
+
+    private static String interleave(String word1, String word2, Random random) {
+        StringBuilder tiles = new StringBuilder();
+        int i = 0, j = 0;
+        while (i < word1.length() || j < word2.length()) {
+            if (j == word2.length() || (i < word1.length() && random.nextBoolean())) {
+                tiles.append(word1.charAt(i++));
+            }
+            else {
+                tiles.append(word2.charAt(j++));
+            }
+        }
+        return tiles.toString();
+    }
+}
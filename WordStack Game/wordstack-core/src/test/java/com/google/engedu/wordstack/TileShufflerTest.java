@@ -0,0 +1,143 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that shuffled tiles are valid interleavings, drawn uniformly, in bounded time.
+ */
+public class TileShufflerTest {
+
+    @Test
+    public void shuffle_interleavesWithoutShowingAnyWord() {
+        TileShuffler shuffler = new TileShuffler();
+        Random random = new Random(23);
+        String[][] rounds = {{"stack", "words"}, {"tiles", "tiler"}, {"abcde", "abcde"}, {"aabab", "abaab"},
+                {"tilts", "stilt", "lilts"}, {"stack", "words", "tiles", "piles"}};
+        for (String[] round : rounds) {
+            List<String> words = Arrays.asList(round);
+            for (int i = 0; i < 1000; i++) {
+                String tiles = new String(shuffler.shuffle(words, random));
+                for (String word : round) {
+                    assertFalse(tiles, tiles.contains(word));
+                }
+                assertTrue(tiles, isInterleaving(tiles, 0, new int[round.length], round));
+            }
+        }
+    }
+
+    @Test
+    public void shuffle_uniformOverValidPaths() {
+        // "abc"/"xyz" has 20 paths, some of which leave a word in one piece
+        assertUniform(new TileShuffler(), "abc", "xyz");
+        assertUniform(new TileShuffler(), "ab", "cd", "ef");
+        // With no random draws the enumeration alone has to be uniform too
+        assertUniform(new TileShuffler(0), "abc", "xyz");
+        assertUniform(new TileShuffler(0), "ab", "cd", "ef");
+    }
+
+    @Test
+    public void shuffle_noValidPathStillTerminates() {
+        // Every interleaving ends in "aaaab"
+        TileShuffler shuffler = new TileShuffler();
+        String tiles = new String(shuffler.shuffle(Arrays.asList("aaaaa", "aaaab"), new Random(1)));
+        assertEquals("aaaaaaaaab", tiles);
+        // Too many paths to walk, so the last draw is dealt
+        String[] round = {"aaaaaaa", "aaaaaaa", "aaaaaaa", "aaaaaab"};
+        tiles = new String(shuffler.shuffle(Arrays.asList(round), new Random(1)));
+        assertTrue(tiles, isInterleaving(tiles, 0, new int[round.length], round));
+    }
+
+    @Test
+    public void shuffle_reusesBuffer() {
+        TileShuffler shuffler = new TileShuffler();
+        Random random = new Random(5);
+        char[] first = shuffler.shuffle(Arrays.asList("stack", "words"), random);
+        assertSame(first, shuffler.shuffle(Arrays.asList("tiles", "piles"), random));
+        assertEquals(7, shuffler.shuffle(Arrays.asList("abc", "wxyz"), random).length);
+        assertEquals(12, shuffler.shuffle(Arrays.asList("abcd", "efgh", "ijkl"), random).length);
+    }
+
+    private static void assertUniform(TileShuffler shuffler, String... words) {
+        Random random = new Random(7);
+        HashMap<String, Integer> counts = new HashMap<>();
+        int draws = 40000;
+        for (int i = 0; i < draws; i++) {
+            String tiles = new String(shuffler.shuffle(Arrays.asList(words), random));
+            Integer count = counts.get(tiles);
+            counts.put(tiles, count == null ? 1 : count + 1);
+        }
+        int expected = draws / counts.size();
+        for (String tiles : counts.keySet()) {
+            assertTrue(tiles + " " + counts.get(tiles), Math.abs(counts.get(tiles) - expected) < expected / 4);
+        }
+        assertEquals(validInterleavings("", new int[words.length], words), counts.size());
+    }
+
+    // Valid interleavings that extend tiles, with used[w] letters of each word already dealt
+    private static int validInterleavings(String tiles, int[] used, String[] words) {
+        boolean done = true;
+        int valid = 0;
+        for (int w = 0; w < words.length; w++) {
+            if (used[w] < words[w].length()) {
+                done = false;
+                used[w]++;
+                valid += validInterleavings(tiles + words[w].charAt(used[w] - 1), used, words);
+                used[w]--;
+            }
+        }
+        if (!done) {
+            return valid;
+        }
+        for (String word : words) {
+            if (tiles.contains(word)) {
+                return 0;
+            }
+        }
+        return 1;
+    }
+
+    // Whether the tiles from dealt on can be split among the words' remaining letters, in order
+    private static boolean isInterleaving(String tiles, int dealt, int[] used, String[] words) {
+        if (dealt == tiles.length()) {
+            for (int w = 0; w < words.length; w++) {
+                if (used[w] != words[w].length()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int w = 0; w < words.length; w++) {
+            if (used[w] < words[w].length() && words[w].charAt(used[w]) == tiles.charAt(dealt)) {
+                used[w]++;
+                boolean found = isInterleaving(tiles, dealt + 1, used, words);
+                used[w]--;
+                if (found) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
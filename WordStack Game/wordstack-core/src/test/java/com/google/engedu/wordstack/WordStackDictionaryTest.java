@@ -0,0 +1,124 @@
+/* Copyright 2016 Google Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.engedu.wordstack;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the trie and length buckets against the bundled words.txt.
+ */
+public class WordStackDictionaryTest {
+
+    // Unit tests run from the module directory; the word list ships with the app
+    static final String WORDS_FILE = "../app/src/main/assets/words.txt";
+
+    private static WordStackDictionary dictionary;
+    private static List<String> words = new ArrayList<>();
+
+    @BeforeClass
+    public static void loadDictionary() throws IOException {
+        dictionary = new WordStackDictionary(openWords());
+        BufferedReader in = new BufferedReader(openWords());
+        String line;
+        while ((line = in.readLine()) != null) {
+            words.add(line.trim());
+        }
+        in.close();
+    }
+
+    static Reader openWords() throws IOException {
+        return new InputStreamReader(new FileInputStream(WORDS_FILE), "UTF-8");
+    }
+
+    @Test
+    public void contains_everyWord() {
+        for (String word : words) {
+            assertTrue(word, dictionary.contains(word));
+        }
+        assertEquals(new HashSet<>(words).size(), dictionary.getTrie().size());
+    }
+
+    @Test
+    public void contains_matchesListForNonWords() {
+        // Prefixes, extensions and one-letter edits of real words, most of which aren't words
+        for (int i = 0; i < words.size(); i += 97) {
+            String word = words.get(i);
+            List<String> probes = Arrays.asList(word.substring(0, word.length() - 1), word + "s", word + "q",
+                    'x' + word.substring(1), word.toUpperCase());
+            for (String probe : probes) {
+                assertEquals(probe, words.contains(probe), dictionary.contains(probe));
+            }
+        }
+        assertFalse(dictionary.contains(""));
+    }
+
+    @Test
+    public void getWordsOfLength_bucketsInFileOrder() {
+        int total = 0;
+        for (int length = 0; length <= 30; length++) {
+            List<String> expected = new ArrayList<>();
+            for (String word : words) {
+                if (word.length() == length && !expected.contains(word)) {
+                    expected.add(word);
+                }
+            }
+            assertEquals(expected, dictionary.getWordsOfLength(length));
+            total += expected.size();
+        }
+        assertEquals(new HashSet<>(words).size(), total);
+        assertTrue(dictionary.getWordsOfLength(-1).isEmpty());
+    }
+
+    @Test
+    public void getWordsOfLength_listsRepeatedWordsOnce() throws IOException {
+        WordStackDictionary repeated = new WordStackDictionary(new StringReader("stop\npots\nstop\ntea\n"));
+        assertEquals(Arrays.asList("stop", "pots"), repeated.getWordsOfLength(4));
+        assertEquals(3, repeated.getTrie().size());
+    }
+
+    @Test
+    public void trie_walksPrefixes() throws IOException {
+        WordStackDictionary small = new WordStackDictionary(new StringReader("tea\nten\nte\ninn\ntea\n"));
+        WordTrie trie = small.getTrie();
+        assertEquals(4, trie.size());
+        // Root, t, i, te, in, tea, ten, inn
+        assertEquals(8, trie.nodeCount());
+        int te = trie.find("te");
+        assertTrue(trie.isWord(te));
+        assertTrue(trie.hasChildren(te));
+        assertEquals(trie.find("tea"), trie.child(te, 'a'));
+        assertFalse(trie.hasChildren(trie.find("tea")));
+        assertFalse(trie.isWord(trie.find("t")));
+        assertEquals(WordTrie.NONE, trie.find("tx"));
+        assertEquals(WordTrie.NONE, trie.child(WordTrie.NONE, 'a'));
+        assertFalse(small.contains("in"));
+        assertTrue(small.contains("inn"));
+    }
+}